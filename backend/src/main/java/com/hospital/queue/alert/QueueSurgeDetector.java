@@ -0,0 +1,203 @@
+package com.hospital.queue.alert;
+
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.Token;
+import com.hospital.queue.event.TokenEvent;
+import com.hospital.queue.ratelimit.TokenBucketRateLimiter;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.service.WebSocketService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Watches the token event stream for departments falling behind and alerts the admins
+ * of the department's hospital on /topic/admin/{hospitalId}/alerts (system admins on
+ * /topic/admin/alerts): arrivals outpacing completions over the window, or the p90 wait
+ * of called patients over a threshold. Each department keeps a fixed-size sliding window,
+ * updated in O(1) per event without touching the database. An alert is raised once
+ * per episode of its condition, not again until it has cleared and the cooldown has
+ * passed, and alerts per department are rate-limited; a condition held back by either
+ * still alerts once they allow it, if it persists.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QueueSurgeDetector {
+
+    private static final int BUCKETS = 30;
+    private static final int WAIT_BINS = 48;
+    private static final long WAIT_BIN_MINUTES = 5;
+
+    private final WebSocketService webSocketService;
+    private final DepartmentRepository departmentRepository;
+
+    @Value("${alerts.surge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${alerts.surge.window-minutes:30}")
+    private long windowMinutes;
+
+    @Value("${alerts.surge.min-arrivals:10}")
+    private int minArrivals;
+
+    @Value("${alerts.surge.arrival-service-ratio:1.5}")
+    private double arrivalServiceRatio;
+
+    @Value("${alerts.surge.wait-p90-minutes:60}")
+    private long waitP90Minutes;
+
+    @Value("${alerts.surge.min-wait-samples:10}")
+    private int minWaitSamples;
+
+    @Value("${alerts.surge.cooldown-minutes:15}")
+    private long cooldownMinutes;
+
+    @Value("${alerts.surge.max-alerts-per-hour:4}")
+    private int maxAlertsPerHour;
+
+    private final Map<Long, DepartmentWindow> departments = new ConcurrentHashMap<>();
+    private final LongAdder raised = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private TokenBucketRateLimiter<Long> alertLimiter;
+
+    @PostConstruct
+    public void init() {
+        alertLimiter = new TokenBucketRateLimiter<>(maxAlertsPerHour / 3600.0, 2, 10_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTokenEvent(TokenEvent event) {
+        if (!enabled || event.departmentId() == null) {
+            return;
+        }
+        long now = event.timestamp();
+        DepartmentWindow department = departments.computeIfAbsent(event.departmentId(),
+                id -> new DepartmentWindow(new SlidingWindow(BUCKETS,
+                        Duration.ofMinutes(windowMinutes).toMillis() / BUCKETS, WAIT_BINS, WAIT_BIN_MINUTES)));
+
+        Alert alert;
+        synchronized (department) {
+            SlidingWindow window = department.window;
+            if (event.type() == TokenEvent.Type.CREATED && event.newStatus() == Token.TokenStatus.WAITING) {
+                window.recordArrival(now);
+                alert = checkSurge(department, now);
+            } else if (event.newStatus() == Token.TokenStatus.COMPLETED) {
+                window.recordCompletion(now);
+                alert = checkSurge(department, now);
+            } else if (event.newStatus() == Token.TokenStatus.IN_PROGRESS
+                    && event.bookingTime() != null && event.serviceStartTime() != null) {
+                window.recordWait(now, Duration.between(event.bookingTime(), event.serviceStartTime()).toMinutes());
+                alert = checkWait(department, now);
+            } else {
+                return;
+            }
+            if (alert != null) {
+                long wait = alertLimiter.tryAcquire(event.departmentId());
+                if (wait > 0) {
+                    department.defer(alert.kind(), now + TimeUnit.NANOSECONDS.toMillis(wait));
+                    suppressed.increment();
+                    log.debug("Rate-limited {} alert for department {}", alert.kind(), event.departmentId());
+                    alert = null;
+                } else {
+                    department.raised(alert.kind(), now);
+                }
+            }
+        }
+        if (alert != null) {
+            send(event.departmentId(), alert);
+        }
+    }
+
+    public long getRaisedCount() {
+        return raised.sum();
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    private Alert checkSurge(DepartmentWindow department, long now) {
+        int arrivals = department.window.getArrivals(now);
+        int completions = department.window.getCompletions(now);
+        boolean surging = arrivals >= minArrivals && arrivals > arrivalServiceRatio * completions;
+        if (!department.due(Kind.ARRIVAL_SURGE, surging, now, Duration.ofMinutes(cooldownMinutes).toMillis())) {
+            return null;
+        }
+        return new Alert(Kind.ARRIVAL_SURGE, "WARNING", String.format(
+                "%d arrivals but %d completed in the last %d minutes", arrivals, completions, windowMinutes));
+    }
+
+    private Alert checkWait(DepartmentWindow department, long now) {
+        long p90 = department.window.getWaitPercentileMinutes(now, 90);
+        boolean waiting = department.window.getWaitCount(now) >= minWaitSamples && p90 > waitP90Minutes;
+        if (!department.due(Kind.LONG_WAIT, waiting, now, Duration.ofMinutes(cooldownMinutes).toMillis())) {
+            return null;
+        }
+        return new Alert(Kind.LONG_WAIT, "CRITICAL", String.format(
+                "90%% of patients called in the last %d minutes waited up to %d minutes (limit %d)",
+                windowMinutes, p90, waitP90Minutes));
+    }
+
+    private void send(Long departmentId, Alert alert) {
+        Department department = departmentRepository.findById(departmentId).orElse(null);
+        String name = department != null ? department.getName() : "Department " + departmentId;
+        raised.increment();
+        webSocketService.sendAdminAlert(department != null ? department.getHospitalId() : null,
+                name + ": " + alert.message(), alert.severity());
+    }
+
+    private enum Kind {
+        ARRIVAL_SURGE, LONG_WAIT
+    }
+
+    private record Alert(Kind kind, String severity, String message) {
+    }
+
+    private static final class DepartmentWindow {
+        private final SlidingWindow window;
+        private final boolean[] active = new boolean[Kind.values().length];
+        private final long[] lastRaised = new long[Kind.values().length];
+        private final long[] notBefore = new long[Kind.values().length];
+
+        private DepartmentWindow(SlidingWindow window) {
+            this.window = window;
+        }
+
+        /**
+         * Whether the condition holds, has not been alerted since it started, and neither the
+         * cooldown nor a rate-limit deferral holds it back; it counts as alerted once raised()
+         */
+        private boolean due(Kind kind, boolean condition, long now, long cooldownMillis) {
+            int index = kind.ordinal();
+            if (!condition) {
+                active[index] = false;
+                return false;
+            }
+            return !active[index]
+                    && now >= notBefore[index]
+                    && (lastRaised[index] == 0 || now - lastRaised[index] >= cooldownMillis);
+        }
+
+        private void raised(Kind kind, long now) {
+            active[kind.ordinal()] = true;
+            lastRaised[kind.ordinal()] = now;
+        }
+
+        /**
+         * Rate-limited: check again once the limiter would allow it
+         */
+        private void defer(Kind kind, long until) {
+            notBefore[kind.ordinal()] = until;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.hospital.queue.alert;
+
+import java.util.Arrays;
+
+/**
+ * Arrival, completion and wait counts over the last N buckets of fixed width, held in a
+ * ring that is reused as time moves on, so memory is fixed per window. Waits go into
+ * fixed-width minute bins (the last one open-ended) with running totals, so each update
+ * is O(1) plus clearing the buckets that went stale, and reading a percentile is O(bins).
+ * Not thread-safe; callers serialize access.
+ */
+public class SlidingWindow {
+
+    private final long bucketMillis;
+    private final long binMinutes;
+    private final int[] arrivals;
+    private final int[] completions;
+    private final int[][] waits;
+    private final int[] waitTotals;
+    private int arrivalTotal;
+    private int completionTotal;
+    private int waitCount;
+    private long currentBucket = Long.MIN_VALUE;
+
+    public SlidingWindow(int buckets, long bucketMillis, int bins, long binMinutes) {
+        this.bucketMillis = bucketMillis;
+        this.binMinutes = binMinutes;
+        this.arrivals = new int[buckets];
+        this.completions = new int[buckets];
+        this.waits = new int[buckets][bins];
+        this.waitTotals = new int[bins];
+    }
+
+    public void recordArrival(long nowMillis) {
+        arrivals[advance(nowMillis)]++;
+        arrivalTotal++;
+    }
+
+    public void recordCompletion(long nowMillis) {
+        completions[advance(nowMillis)]++;
+        completionTotal++;
+    }
+
+    public void recordWait(long nowMillis, long waitMinutes) {
+        int bin = (int) Math.min(Math.max(waitMinutes, 0) / binMinutes, waitTotals.length - 1);
+        waits[advance(nowMillis)][bin]++;
+        waitTotals[bin]++;
+        waitCount++;
+    }
+
+    public int getArrivals(long nowMillis) {
+        advance(nowMillis);
+        return arrivalTotal;
+    }
+
+    public int getCompletions(long nowMillis) {
+        advance(nowMillis);
+        return completionTotal;
+    }
+
+    public int getWaitCount(long nowMillis) {
+        advance(nowMillis);
+        return waitCount;
+    }
+
+    /**
+     * Upper edge of the bin holding the percentile, or 0 with no waits in the window
+     */
+    public long getWaitPercentileMinutes(long nowMillis, double percentile) {
+        advance(nowMillis);
+        long rank = (long) Math.ceil(waitCount * percentile / 100.0);
+        long seen = 0;
+        for (int bin = 0; bin < waitTotals.length; bin++) {
+            seen += waitTotals[bin];
+            if (seen >= rank && seen > 0) {
+                return (bin + 1) * binMinutes;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Move the window to the time, clearing the buckets it left behind; events a little
+     * out of order land in the current bucket
+     */
+    private int advance(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        if (bucket > currentBucket) {
+            long from = currentBucket == Long.MIN_VALUE
+                    ? bucket - arrivals.length + 1
+                    : Math.max(currentBucket + 1, bucket - arrivals.length + 1);
+            for (long stale = from; stale <= bucket; stale++) {
+                clear(slot(stale));
+            }
+            currentBucket = bucket;
+        }
+        return slot(currentBucket);
+    }
+
+    private void clear(int slot) {
+        arrivalTotal -= arrivals[slot];
+        completionTotal -= completions[slot];
+        arrivals[slot] = 0;
+        completions[slot] = 0;
+        int[] bins = waits[slot];
+        for (int bin = 0; bin < bins.length; bin++) {
+            waitTotals[bin] -= bins[bin];
+            waitCount -= bins[bin];
+        }
+        Arrays.fill(bins, 0);
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) arrivals.length);
+    }
+}
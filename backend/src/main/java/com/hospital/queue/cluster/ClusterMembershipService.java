@@ -0,0 +1,165 @@
+package com.hospital.queue.cluster;
+
+import com.hospital.queue.entity.ClusterNode;
+import com.hospital.queue.repository.ClusterNodeRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Cluster membership kept in the cluster_nodes table. Every node heartbeats its own row
+ * and rebuilds a consistent-hash ring of hospitals from the live rows, so all nodes
+ * agree on which node owns each hospital's queues. When a node joins or stops
+ * heartbeating, only the hospitals next to it on the ring move.
+ * With cluster.enabled=false this node owns everything and nothing is written.
+ */
+@Service
+@Slf4j
+public class ClusterMembershipService {
+
+    private final ClusterNodeRepository clusterNodeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final String nodeId;
+    private final String advertisedUrl;
+    private final long heartbeatTimeoutSeconds;
+    private final int virtualNodes;
+
+    private volatile ConsistentHashRing ring;
+    private volatile Map<String, String> nodeUrls;
+
+    public ClusterMembershipService(
+            ClusterNodeRepository clusterNodeRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${cluster.enabled:false}") boolean enabled,
+            @Value("${cluster.node-id:}") String nodeId,
+            @Value("${cluster.advertised-url:http://localhost:${server.port:8080}}") String advertisedUrl,
+            @Value("${cluster.heartbeat-timeout-seconds:15}") long heartbeatTimeoutSeconds,
+            @Value("${cluster.virtual-nodes:64}") int virtualNodes
+    ) {
+        this.clusterNodeRepository = clusterNodeRepository;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId : defaultNodeId();
+        this.advertisedUrl = advertisedUrl;
+        this.heartbeatTimeoutSeconds = heartbeatTimeoutSeconds;
+        this.virtualNodes = virtualNodes;
+        this.ring = new ConsistentHashRing(Set.of(this.nodeId), virtualNodes);
+        this.nodeUrls = Map.of(this.nodeId, advertisedUrl);
+    }
+
+    /**
+     * Synchronized with heartbeat(), whose first run may start at the same time and
+     * would otherwise insert this node's row twice
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void join() {
+        if (!enabled) {
+            return;
+        }
+        ClusterNode node = new ClusterNode();
+        node.setNodeId(nodeId);
+        node.setUrl(advertisedUrl);
+        clusterNodeRepository.save(node);
+        log.info("Node {} joined the cluster at {}", nodeId, advertisedUrl);
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${cluster.heartbeat-interval-ms:5000}")
+    public synchronized void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        ClusterNode node = clusterNodeRepository.findById(nodeId).orElseGet(() -> {
+            ClusterNode fresh = new ClusterNode();
+            fresh.setNodeId(nodeId);
+            return fresh;
+        });
+        node.setUrl(advertisedUrl);
+        node.setLastHeartbeat(LocalDateTime.now());
+        clusterNodeRepository.save(node);
+        refresh();
+    }
+
+    /**
+     * Rebuild the ring from live members and announce it when the member set changed
+     */
+    void refresh() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(heartbeatTimeoutSeconds);
+        List<ClusterNode> live = clusterNodeRepository.findByLastHeartbeatAfterOrderByNodeIdAsc(cutoff);
+        Map<String, String> urls = live.stream()
+                .collect(Collectors.toMap(ClusterNode::getNodeId, ClusterNode::getUrl));
+        urls.putIfAbsent(nodeId, advertisedUrl);
+
+        Set<String> previous = ring.getNodes();
+        nodeUrls = Map.copyOf(urls);
+        if (!previous.equals(urls.keySet())) {
+            ring = new ConsistentHashRing(urls.keySet(), virtualNodes);
+            log.info("Cluster membership changed from {} to {}, rebalancing hospital shards",
+                    previous, ring.getNodes());
+            eventPublisher.publishEvent(new ShardOwnershipChangedEvent(previous, ring.getNodes()));
+        }
+    }
+
+    @PreDestroy
+    public void leave() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            clusterNodeRepository.deleteById(nodeId);
+            log.info("Node {} left the cluster", nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Could not remove node {} from the cluster table: {}", nodeId, e.getMessage());
+        }
+    }
+
+    public String ownerOf(Long hospitalId) {
+        return ring.ownerOf(hospitalId);
+    }
+
+    public boolean isLocal(Long hospitalId) {
+        return !enabled || hospitalId == null || nodeId.equals(ring.ownerOf(hospitalId));
+    }
+
+    public String urlOf(String ownerNodeId) {
+        return nodeUrls.get(ownerNodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Map<String, String> getMembers() {
+        return nodeUrls;
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,10 @@
+package com.hospital.queue.cluster;
+
+import java.util.Set;
+
+/**
+ * Published when cluster membership changes and hospital shards may have moved.
+ * Components holding per-department state should drop it and reload on demand.
+ */
+public record ShardOwnershipChangedEvent(Set<String> previousNodes, Set<String> currentNodes) {
+}
@@ -0,0 +1,118 @@
+package com.hospital.queue.cluster;
+
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.repository.DepartmentRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Sends queue mutations to the node that owns the department's hospital, so the
+ * in-memory queue state (dispatcher, rate limits, idempotency, broadcasts) for a
+ * hospital lives on exactly one node. Requests already forwarded once are always
+ * handled locally to avoid ping-pong while nodes disagree during a rebalance.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShardRouter {
+
+    public static final String FORWARDED_HEADER = "X-Shard-Forwarded-By";
+    private static final List<String> FORWARDED_REQUEST_HEADERS =
+            List.of(HttpHeaders.AUTHORIZATION, "Idempotency-Key");
+    // Framing headers (Content-Length, Transfer-Encoding, Content-Encoding) belong to the
+    // owner's connection; this node frames the relayed body itself
+    private static final List<String> RELAYED_RESPONSE_HEADERS =
+            List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.RETRY_AFTER);
+
+    private final ClusterMembershipService membershipService;
+    private final DepartmentRepository departmentRepository;
+    private final WebClient.Builder webClientBuilder;
+
+    /**
+     * Empty when this node owns the department's hospital; otherwise the response of
+     * the owning node, to which the request was forwarded. The department is only
+     * resolved when clustering is enabled.
+     */
+    public <T> Optional<ResponseEntity<T>> routeToOwner(Supplier<Long> departmentId, HttpServletRequest request,
+                                                        Object body, Class<T> type) {
+        if (!membershipService.isEnabled() || request.getHeader(FORWARDED_HEADER) != null) {
+            return Optional.empty();
+        }
+        Long hospitalId = departmentRepository.findById(departmentId.get())
+                .map(Department::getHospitalId)
+                .orElseThrow(() -> new RuntimeException("Department not found"));
+        if (membershipService.isLocal(hospitalId)) {
+            return Optional.empty();
+        }
+        return Optional.of(forward(hospitalId, request, body, type));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> forward(Long hospitalId, HttpServletRequest request, Object body, Class<T> type) {
+        String owner = membershipService.ownerOf(hospitalId);
+        String ownerUrl = membershipService.urlOf(owner);
+        if (ownerUrl == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+
+        String uri = ownerUrl + request.getRequestURI()
+                + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        log.debug("Forwarding {} {} for hospital {} to node {}", request.getMethod(), uri, hospitalId, owner);
+
+        try {
+            WebClient.RequestBodySpec spec = webClientBuilder.build()
+                    .method(HttpMethod.valueOf(request.getMethod()))
+                    .uri(uri)
+                    .header(FORWARDED_HEADER, membershipService.getNodeId())
+                    .headers(headers -> FORWARDED_REQUEST_HEADERS.forEach(name -> {
+                        String value = request.getHeader(name);
+                        if (value != null) {
+                            headers.set(name, value);
+                        }
+                    }));
+            if (body != null) {
+                spec.bodyValue(body);
+            }
+            ResponseEntity<T> response = spec.retrieve().toEntity(type).block();
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(relayed(response.getHeaders()))
+                    .body(response.getBody());
+        } catch (WebClientResponseException e) {
+            // The owner's error payload as-is, e.g. the 429 message; written by the byte array converter
+            return (ResponseEntity<T>) (ResponseEntity<?>) ResponseEntity.status(e.getStatusCode())
+                    .headers(relayed(e.getHeaders()))
+                    .body(e.getResponseBodyAsByteArray());
+        } catch (WebClientRequestException e) {
+            log.warn("Owner node {} for hospital {} is unreachable: {}", owner, hospitalId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+    }
+
+    private static HttpHeaders relayed(HttpHeaders owner) {
+        HttpHeaders headers = new HttpHeaders();
+        RELAYED_RESPONSE_HEADERS.forEach(name -> {
+            List<String> values = owner.get(name);
+            if (values != null) {
+                headers.addAll(name, values);
+            }
+        });
+        return headers;
+    }
+}
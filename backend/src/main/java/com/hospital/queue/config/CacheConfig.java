@@ -0,0 +1,87 @@
+package com.hospital.queue.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.Entity;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-through caches for reference data (departments, hospitals, doctors). The
+ * repositories evict on every write, after the transaction commits, and the TTL bounds
+ * staleness for writes made by other nodes. Entities are copied into and out of the
+ * caches, so a caller changing what it was handed cannot change what others read.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final List<String> REFERENCE_CACHES = List.of(
+            "departments", "allDepartments", "departmentsByHospital",
+            "hospitals",
+            "doctors", "doctorsByDepartment", "availableDoctors"
+    );
+
+    @Value("${cache.reference.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+                return new CopyingCaffeineCache(name, cache, isAllowNullValues());
+            }
+        };
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats());
+        cacheManager.setCacheNames(REFERENCE_CACHES);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    private static class CopyingCaffeineCache extends CaffeineCache {
+
+        CopyingCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues) {
+            super(name, cache, allowNullValues);
+        }
+
+        @Override
+        protected Object toStoreValue(Object userValue) {
+            return super.toStoreValue(copy(userValue));
+        }
+
+        @Override
+        protected Object fromStoreValue(Object storeValue) {
+            return copy(super.fromStoreValue(storeValue));
+        }
+
+        private static Object copy(Object value) {
+            if (value instanceof List<?> list) {
+                List<Object> copies = new ArrayList<>(list.size());
+                for (Object element : list) {
+                    copies.add(copy(element));
+                }
+                return copies;
+            }
+            if (value != null && value.getClass().isAnnotationPresent(Entity.class)) {
+                Object copy = BeanUtils.instantiateClass(value.getClass());
+                BeanUtils.copyProperties(value, copy);
+                return copy;
+            }
+            return value;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.hospital.queue.config;
 
 import com.hospital.queue.security.JwtAuthenticationFilter;
+import com.hospital.queue.service.CustomUserDetailsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,7 +13,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -23,12 +24,16 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @RequiredArgsConstructor
 public class SecurityConfig {
 
-    private final UserDetailsService userDetailsService;
+    private final CustomUserDetailsService userDetailsService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // Hashes below this strength are upgraded transparently on the next login
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 
     @Bean
@@ -37,6 +42,7 @@ public class SecurityConfig {
                 new DaoAuthenticationProvider(userDetailsService);
 
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -59,7 +65,8 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/").permitAll()
                         .requestMatchers("/api/**").permitAll()
-                        .requestMatchers("/ws/").permitAll()
+                        .requestMatchers("/ws/**").permitAll() // STOMP CONNECT is authenticated by StompAuthChannelInterceptor
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // scraped from the internal network
                         .requestMatchers("/api/departments/public/").permitAll()
                         .requestMatchers("/api/admin/").hasRole("HOSPITAL_ADMIN")
                         .anyRequest().authenticated()
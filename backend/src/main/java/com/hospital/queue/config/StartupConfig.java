@@ -0,0 +1,42 @@
+package com.hospital.queue.config;
+
+import com.hospital.queue.controller.TokenController;
+import com.hospital.queue.service.DoctorDispatcher;
+import com.hospital.queue.service.MLPredictionService;
+import com.hospital.queue.service.TokenService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.List;
+
+/**
+ * Start-up tuning for spring.main.lazy-initialization (production profile). Everything
+ * not needed to take a booking is created on first use, except beans with scheduled
+ * work: their schedules are only registered once the bean exists.
+ */
+@Configuration
+public class StartupConfig {
+
+    private static final List<Class<?>> BOOKING_PATH = List.of(
+            TokenController.class, TokenService.class, DoctorDispatcher.class, MLPredictionService.class
+    );
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerQueueBeans() {
+        return (beanName, definition, beanType) ->
+                BOOKING_PATH.stream().anyMatch(type -> type.isAssignableFrom(beanType)) || hasScheduledWork(beanType);
+    }
+
+    private static boolean hasScheduledWork(Class<?> beanType) {
+        if (!AnnotationUtils.isCandidateClass(beanType, Scheduled.class)) {
+            return false;
+        }
+        return !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+}
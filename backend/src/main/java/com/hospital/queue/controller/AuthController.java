@@ -3,9 +3,12 @@ package com.hospital.queue.controller;
 import com.hospital.queue.dto.AuthResponse;
 import com.hospital.queue.dto.LoginRequest;
 import com.hospital.queue.dto.RegisterRequest;
+import com.hospital.queue.security.LoginThrottledException;
 import com.hospital.queue.service.AuthService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -28,4 +31,11 @@ public class AuthController {
         AuthResponse response = authService.login(request);
         return ResponseEntity.ok(response);
     }
+
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<String> handleThrottled(LoginThrottledException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.hospital.queue.controller;
+
+import com.hospital.queue.cluster.ClusterMembershipService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cluster")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+@RequiredArgsConstructor
+public class ClusterController {
+
+    private final ClusterMembershipService membershipService;
+
+    @GetMapping("/nodes")
+    public ResponseEntity<Map<String, Object>> getNodes() {
+        Map<String, Object> cluster = new LinkedHashMap<>();
+        cluster.put("enabled", membershipService.isEnabled());
+        cluster.put("self", membershipService.getNodeId());
+        cluster.put("members", membershipService.getMembers());
+        return ResponseEntity.ok(cluster);
+    }
+
+    /**
+     * Node owning the hospital's queues; live screens should open their WebSocket/SSE there
+     */
+    @GetMapping("/hospitals/{hospitalId}/owner")
+    public ResponseEntity<Map<String, String>> getOwner(@PathVariable Long hospitalId) {
+        String owner = membershipService.ownerOf(hospitalId);
+        Map<String, String> result = new LinkedHashMap<>();
+        result.put("nodeId", owner);
+        result.put("url", membershipService.urlOf(owner));
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,12 +1,29 @@
 package com.hospital.queue.controller;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.hospital.queue.config.CacheConfig;
 import com.hospital.queue.dto.DashboardStatusResponse;
+import com.hospital.queue.dto.LatencyDistributionResponse;
 import com.hospital.queue.dto.DashboardStatusResponse;
 import com.hospital.queue.service.DashboardService;
+import com.hospital.queue.service.LatencyHistogramService;
+import com.hospital.queue.service.QueueVersionService;
+import com.hospital.queue.websocket.SubscriptionRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/dashboard")
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
@@ -14,10 +31,66 @@ import org.springframework.web.bind.annotation.*;
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final LatencyHistogramService latencyHistogramService;
+    private final QueueVersionService queueVersionService;
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final CacheManager cacheManager;
 
     @GetMapping("/stats/{departmentId}")
-    public ResponseEntity<DashboardStatusResponse> getDepartmentStats(@PathVariable Long departmentId) {
+    public ResponseEntity<DashboardStatusResponse> getDepartmentStats(
+            @PathVariable Long departmentId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        // Today's figures, so the tag also rolls over at midnight
+        String eTag = queueVersionService.eTag(departmentId, "stats-" + LocalDate.now());
+        if (QueueVersionService.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).eTag(eTag).build();
+        }
+
         DashboardStatusResponse stats = dashboardService.getTodayStats(departmentId);
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(eTag).body(stats);
+    }
+
+    /**
+     * Wait and service time percentiles over the booking dates, both inclusive (default today)
+     */
+    @GetMapping("/latency/{departmentId}")
+    public ResponseEntity<LatencyDistributionResponse> getLatencyDistribution(
+            @PathVariable Long departmentId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end;
+        if (start.isAfter(end)) {
+            throw new RuntimeException("Invalid date range");
+        }
+        return ResponseEntity.ok(latencyHistogramService.getDistribution(departmentId, start, end));
+    }
+
+    /**
+     * Live subscribers per destination family; also exported as queue.stomp.subscriptions
+     */
+    @GetMapping("/subscriptions")
+    @PreAuthorize("hasRole('SYSTEM_ADMIN')")
+    public ResponseEntity<Map<String, Integer>> getSubscriptionCounts() {
+        return ResponseEntity.ok(subscriptionRegistry.getSubscriberCountsByFamily());
+    }
+
+    @GetMapping("/caches")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStats() {
+        Map<String, Map<String, Object>> caches = new LinkedHashMap<>();
+        for (String name : CacheConfig.REFERENCE_CACHES) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+                CacheStats stats = nativeCache.stats();
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("hits", stats.hitCount());
+                entry.put("misses", stats.missCount());
+                entry.put("hitRatio", stats.hitRate());
+                entry.put("size", nativeCache.estimatedSize());
+                caches.put(name, entry);
+            }
+        }
+        return ResponseEntity.ok(caches);
     }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.hospital.queue.controller;
 
+import com.hospital.queue.dto.DoctorStatsResponse;
 import com.hospital.queue.entity.Department;
 import com.hospital.queue.service.DepartmentService;
+import com.hospital.queue.service.DoctorDispatcher;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +17,7 @@ import java.util.List;
 public class DepartmentController {
 
     private final DepartmentService departmentService;
+    private final DoctorDispatcher doctorDispatcher;
 
     @GetMapping
     public ResponseEntity<List<Department>> getAllDepartments() {
@@ -34,6 +37,11 @@ public class DepartmentController {
         return ResponseEntity.ok(departments);
     }
 
+    @GetMapping("/{id}/doctors/stats")
+    public ResponseEntity<List<DoctorStatsResponse>> getDoctorStats(@PathVariable Long id) {
+        return ResponseEntity.ok(doctorDispatcher.getDoctorStats(id));
+    }
+
     @PostMapping
     public ResponseEntity<Department> createDepartment(@RequestBody Department department) {
         Department created = departmentService.createDepartment(department);
@@ -0,0 +1,52 @@
+package com.hospital.queue.controller;
+
+import com.hospital.queue.security.UserPrincipal;
+import com.hospital.queue.service.EventStreamService;
+import com.hospital.queue.service.TokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/stream")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+@RequiredArgsConstructor
+public class EventStreamController {
+
+    private final EventStreamService eventStreamService;
+    private final TokenService tokenService;
+
+    @GetMapping(path = "/department/{departmentId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamDepartment(
+            @PathVariable Long departmentId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId
+    ) {
+        return eventStreamService.departmentEvents(
+                departmentId,
+                lastEventId,
+                () -> tokenService.getDepartmentQueue(departmentId)
+        );
+    }
+
+    /**
+     * The caller's own notifications only
+     */
+    @GetMapping(path = "/user/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Flux<ServerSentEvent<String>>> streamUser(
+            @PathVariable Long userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @AuthenticationPrincipal UserPrincipal principal
+    ) {
+        if (!principal.getId().equals(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(eventStreamService.userEvents(userId, lastEventId));
+    }
+}
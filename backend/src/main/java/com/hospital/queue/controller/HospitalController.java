@@ -0,0 +1,36 @@
+package com.hospital.queue.controller;
+
+import com.hospital.queue.dto.HospitalOverviewResponse;
+import com.hospital.queue.security.UserPrincipal;
+import com.hospital.queue.service.HospitalOverviewService;
+import com.hospital.queue.websocket.SubscriptionAuthorizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/hospitals")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+@RequiredArgsConstructor
+public class HospitalController {
+
+    private final HospitalOverviewService hospitalOverviewService;
+
+    /**
+     * Today's stats for all departments of the hospital; also pushed to /topic/hospital/{id}/overview
+     */
+    @GetMapping("/{id}/overview")
+    @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'HOSPITAL_ADMIN')")
+    public ResponseEntity<HospitalOverviewResponse> getOverview(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserPrincipal principal
+    ) {
+        if (!SubscriptionAuthorizer.canManageHospital(principal, id)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(hospitalOverviewService.getOverview(id));
+    }
+}
@@ -0,0 +1,72 @@
+package com.hospital.queue.controller;
+
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.journal.JournalEntry;
+import com.hospital.queue.journal.TokenJournal;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.security.UserPrincipal;
+import com.hospital.queue.websocket.SubscriptionAuthorizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Audit views over the token event journal; served from the journal files, not the database.
+ * Hospital admins see only their own hospital's departments.
+ */
+@RestController
+@RequestMapping("/api/journal")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+@RequiredArgsConstructor
+@PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'HOSPITAL_ADMIN')")
+public class JournalController {
+
+    private final TokenJournal tokenJournal;
+    private final DepartmentRepository departmentRepository;
+
+    @GetMapping("/tokens/{tokenId}/history")
+    public ResponseEntity<List<JournalEntry>> getTokenHistory(
+            @PathVariable Long tokenId,
+            @AuthenticationPrincipal UserPrincipal principal
+    ) {
+        // The department comes from the token's CREATED entry, the first one
+        List<JournalEntry> history = tokenJournal.history(tokenId);
+        if (history.isEmpty()) {
+            throw new RuntimeException("Token not found");
+        }
+        if (!canManageDepartment(principal, history.get(0).event().departmentId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(history);
+    }
+
+    @GetMapping("/departments/{departmentId}/events")
+    public ResponseEntity<List<JournalEntry>> getDepartmentEvents(
+            @PathVariable Long departmentId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @AuthenticationPrincipal UserPrincipal principal
+    ) {
+        if (!canManageDepartment(principal, departmentId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        return ResponseEntity.ok(tokenJournal.events(departmentId,
+                from.atZone(zone).toInstant(), to.atZone(zone).toInstant()));
+    }
+
+    private boolean canManageDepartment(UserPrincipal principal, Long departmentId) {
+        Long hospitalId = departmentRepository.findById(departmentId)
+                .map(Department::getHospitalId)
+                .orElseThrow(() -> new RuntimeException("Department not found"));
+        return SubscriptionAuthorizer.canManageHospital(principal, hospitalId);
+    }
+}
@@ -0,0 +1,36 @@
+package com.hospital.queue.controller;
+
+import com.hospital.queue.dto.NotificationReplayResponse;
+import com.hospital.queue.security.UserPrincipal;
+import com.hospital.queue.websocket.NotificationOutbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/notifications")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+@RequiredArgsConstructor
+public class NotificationController {
+
+    private final NotificationOutbox notificationOutbox;
+
+    /**
+     * The caller's own missed notifications only
+     */
+    @GetMapping("/user/{userId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<NotificationReplayResponse> getMissedNotifications(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "0") Long after,
+            @AuthenticationPrincipal UserPrincipal principal
+    ) {
+        if (!principal.getId().equals(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(notificationOutbox.replaySince(userId, after));
+    }
+}
@@ -1,15 +1,28 @@
 package com.hospital.queue.controller;
 
+import com.hospital.queue.cluster.ShardRouter;
 import com.hospital.queue.dto.StatusUpdateRequest;
 import com.hospital.queue.dto.TokenRequest;
 import com.hospital.queue.dto.TokenResponse;
+import com.hospital.queue.ratelimit.BookingRateLimiter;
+import com.hospital.queue.ratelimit.RateLimitExceededException;
+import com.hospital.queue.security.UserPrincipal;
+import com.hospital.queue.service.IdempotencyService;
+import com.hospital.queue.service.QueueVersionService;
 import com.hospital.queue.service.TokenService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/tokens")
@@ -18,10 +31,37 @@ import java.util.List;
 public class TokenController {
 
     private final TokenService tokenService;
+    private final BookingRateLimiter bookingRateLimiter;
+    private final IdempotencyService idempotencyService;
+    private final ShardRouter shardRouter;
+    private final QueueVersionService queueVersionService;
 
     @PostMapping
-    public ResponseEntity<TokenResponse> createToken(@Valid @RequestBody TokenRequest request) {
-        TokenResponse response = tokenService.createToken(request);
+    public ResponseEntity<TokenResponse> createToken(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody TokenRequest request,
+            @AuthenticationPrincipal UserPrincipal principal,
+            HttpServletRequest httpRequest
+    ) {
+        Optional<ResponseEntity<TokenResponse>> forwarded =
+                shardRouter.routeToOwner(request::getDepartmentId, httpRequest, request, TokenResponse.class);
+        if (forwarded.isPresent()) {
+            return forwarded.get();
+        }
+
+        String key = StringUtils.hasText(idempotencyKey) ? idempotencyKey : null;
+        if (key != null && key.length() > 64) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Retries are answered from the idempotency store without being rate limited again
+        TokenResponse response = idempotencyService.createToken(request.getUserId(), key, () -> {
+            // Admission control before the transaction opens or any query runs
+            String clientKey = BookingRateLimiter.clientKey(
+                    principal != null ? principal.getId() : null, httpRequest.getRemoteAddr());
+            bookingRateLimiter.acquire(clientKey, request.getDepartmentId());
+            return tokenService.createToken(request, key);
+        });
         return ResponseEntity.ok(response);
     }
 
@@ -32,17 +72,56 @@ public class TokenController {
     }
 
     @GetMapping("/department/{departmentId}")
-    public ResponseEntity<List<TokenResponse>> getDepartmentQueue(@PathVariable Long departmentId) {
+    public ResponseEntity<List<TokenResponse>> getDepartmentQueue(
+            @PathVariable Long departmentId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        // Unchanged since the client's last poll: answer before any query or serialization
+        String eTag = queueVersionService.eTag(departmentId, "queue");
+        if (QueueVersionService.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).eTag(eTag).build();
+        }
+
         List<TokenResponse> queue = tokenService.getDepartmentQueue(departmentId);
-        return ResponseEntity.ok(queue);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(eTag).body(queue);
+    }
+
+    @PostMapping("/department/{departmentId}/call-next")
+    public ResponseEntity<TokenResponse> callNext(
+            @PathVariable Long departmentId,
+            @RequestParam(required = false) Long doctorId,
+            HttpServletRequest httpRequest
+    ) {
+        Optional<ResponseEntity<TokenResponse>> forwarded =
+                shardRouter.routeToOwner(() -> departmentId, httpRequest, null, TokenResponse.class);
+        if (forwarded.isPresent()) {
+            return forwarded.get();
+        }
+
+        TokenResponse response = tokenService.callNext(departmentId, doctorId);
+        return ResponseEntity.ok(response);
     }
 
     @PutMapping("/{id}/status")
     public ResponseEntity<TokenResponse> updateStatus(
             @PathVariable Long id,
-            @Valid @RequestBody StatusUpdateRequest request
+            @Valid @RequestBody StatusUpdateRequest request,
+            HttpServletRequest httpRequest
     ) {
+        Optional<ResponseEntity<TokenResponse>> forwarded = shardRouter.routeToOwner(
+                () -> tokenService.getDepartmentIdOfToken(id), httpRequest, request, TokenResponse.class);
+        if (forwarded.isPresent()) {
+            return forwarded.get();
+        }
+
         TokenResponse response = tokenService.updateTokenStatus(id, request.getStatus());
         return ResponseEntity.ok(response);
     }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<String> handleRateLimited(RateLimitExceededException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
 }
\ No newline at end of file
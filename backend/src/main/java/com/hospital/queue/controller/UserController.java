@@ -0,0 +1,61 @@
+package com.hospital.queue.controller;
+
+import com.hospital.queue.dto.RoleUpdateRequest;
+import com.hospital.queue.entity.User;
+import com.hospital.queue.repository.UserRepository;
+import com.hospital.queue.security.UserPrincipal;
+import com.hospital.queue.service.UserService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+@RequiredArgsConstructor
+public class UserController {
+
+    private final UserService userService;
+    private final UserRepository userRepository;
+
+    @PutMapping("/{id}/role")
+    @PreAuthorize("hasRole('SYSTEM_ADMIN')")
+    public ResponseEntity<Void> changeRole(
+            @PathVariable Long id,
+            @Valid @RequestBody RoleUpdateRequest request
+    ) {
+        userService.changeRole(id, request.getRole());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Hospital admins may only deactivate non-system accounts of their own hospital
+     */
+    @PutMapping("/{id}/deactivate")
+    @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'HOSPITAL_ADMIN')")
+    public ResponseEntity<Void> deactivateUser(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserPrincipal principal
+    ) {
+        User target = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!canDeactivate(principal, target)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        userService.deactivateUser(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    private boolean canDeactivate(UserPrincipal principal, User target) {
+        if (principal.getRole() == User.Role.SYSTEM_ADMIN) {
+            return true;
+        }
+        return target.getRole() != User.Role.SYSTEM_ADMIN
+                && principal.getHospitalId() != null
+                && principal.getHospitalId().equals(target.getHospitalId());
+    }
+}
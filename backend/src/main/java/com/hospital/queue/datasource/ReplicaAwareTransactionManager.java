@@ -0,0 +1,62 @@
+package com.hospital.queue.datasource;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * JPA transaction manager that records, before the connection is acquired, whether the
+ * new transaction is a {@link ReplicaRead}. Nested REQUIRES_NEW transactions push their
+ * own entry, so a write started inside a replica read still goes to the primary.
+ */
+public class ReplicaAwareTransactionManager extends JpaTransactionManager {
+
+    private static final ThreadLocal<Deque<Boolean>> REPLICA_READS = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public ReplicaAwareTransactionManager(EntityManagerFactory entityManagerFactory) {
+        super(entityManagerFactory);
+    }
+
+    /**
+     * Whether the innermost transaction on this thread may read from the replica
+     */
+    public static boolean isReplicaRead() {
+        Boolean current = REPLICA_READS.get().peek();
+        return current != null && current;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        boolean replicaRead = definition.isReadOnly()
+                && definition instanceof TransactionAttribute attribute
+                && attribute.getLabels().contains(ReplicaRead.LABEL);
+        REPLICA_READS.get().push(replicaRead);
+        try {
+            super.doBegin(transaction, definition);
+        } catch (RuntimeException | Error e) {
+            pop();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        try {
+            super.doCleanupAfterCompletion(transaction);
+        } finally {
+            pop();
+        }
+    }
+
+    private static void pop() {
+        Deque<Boolean> stack = REPLICA_READS.get();
+        stack.poll();
+        if (stack.isEmpty()) {
+            REPLICA_READS.remove();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.hospital.queue.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Measures replica lag with a heartbeat row: the primary stamps the current time into
+ * replication_heartbeat, and the age of the stamp read back from the replica is the
+ * lag. Reads fall back to the primary while the lag exceeds the limit or the replica
+ * cannot be queried.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final long HEARTBEAT_ID = 1L;
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+
+    private volatile boolean replicaUsable;
+    private volatile long lagMillis = -1;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, long maxLagMillis, MeterRegistry registry) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLagMillis;
+        if (registry != null) {
+            Gauge.builder("db.replica.lag", this, monitor -> monitor.lagMillis / 1000.0)
+                    .description("Age of the newest primary heartbeat visible on the replica, -1 if unknown")
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder("db.replica.usable", this, monitor -> monitor.replicaUsable ? 1 : 0)
+                    .description("Whether replica reads are served by the replica")
+                    .register(registry);
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.heartbeat-interval-ms:1000}")
+    public void checkLag() {
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update("UPDATE replication_heartbeat SET beat_millis = ? WHERE id = ?", now, HEARTBEAT_ID) == 0) {
+                primary.update("INSERT INTO replication_heartbeat (id, beat_millis) VALUES (?, ?)", HEARTBEAT_ID, now);
+            }
+        } catch (RuntimeException e) {
+            log.debug("Could not write replication heartbeat: {}", e.getMessage());
+        }
+
+        long lag;
+        try {
+            List<Long> beats = replica.queryForList(
+                    "SELECT beat_millis FROM replication_heartbeat WHERE id = ?", Long.class, HEARTBEAT_ID);
+            lag = beats.isEmpty() ? -1 : Math.max(0, now - beats.getFirst());
+        } catch (RuntimeException e) {
+            log.debug("Could not read replication heartbeat: {}", e.getMessage());
+            lag = -1;
+        }
+
+        boolean usable = lag >= 0 && lag <= maxLagMillis;
+        lagMillis = lag;
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Replica caught up (lag {} ms); replica reads resume", lag);
+            } else {
+                log.warn("Replica lag {} ms exceeds {} ms or is unknown; reads fall back to the primary",
+                        lag, maxLagMillis);
+            }
+            replicaUsable = usable;
+        }
+    }
+}
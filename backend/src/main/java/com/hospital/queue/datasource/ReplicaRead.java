@@ -0,0 +1,19 @@
+package com.hospital.queue.datasource;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.*;
+
+/**
+ * Read-only transaction that may be served by the read replica when one is configured
+ * and it is not lagging. Use it for dashboards, analytics and history; reads that must
+ * see the caller's own recent writes keep plain transactions and stay on the primary.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(readOnly = true, label = ReplicaRead.LABEL)
+public @interface ReplicaRead {
+
+    String LABEL = "replica";
+}
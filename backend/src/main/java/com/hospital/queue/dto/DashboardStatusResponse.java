@@ -14,4 +14,6 @@ public class DashboardStatusResponse {
     private Long cancelledTokens;
     private Double averageWaitTime;
     private Integer currentQueueLength;
+    private LatencyPercentiles waitTimePercentiles;
+    private LatencyPercentiles serviceTimePercentiles;
 }
\ No newline at end of file
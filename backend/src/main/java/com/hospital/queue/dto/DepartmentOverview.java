@@ -0,0 +1,20 @@
+package com.hospital.queue.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DepartmentOverview {
+    private Long departmentId;
+    private String departmentName;
+    private Long totalTokensToday;
+    private Long completedTokens;
+    private Long waitingTokens;
+    private Long inProgressTokens;
+    private Long cancelledTokens;
+    private Double averageWaitTime; // completed today, in minutes
+    private Integer currentQueueLength;
+}
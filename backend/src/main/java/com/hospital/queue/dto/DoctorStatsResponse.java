@@ -0,0 +1,18 @@
+package com.hospital.queue.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DoctorStatsResponse {
+    private Long doctorId;
+    private Boolean available;
+    private Integer queuedTokens; // explicitly requested this doctor
+    private Integer inProgressTokens;
+    private Long completedTokens;
+    private Integer completedLastHour;
+    private Double averageServiceTime; // smoothed, in minutes
+}
@@ -0,0 +1,20 @@
+package com.hospital.queue.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HospitalOverviewResponse {
+    private Long hospitalId;
+    private String hospitalName;
+    private Long totalTokensToday;
+    private Long waitingTokens;
+    private List<DepartmentOverview> departments;
+    private LocalDateTime generatedAt;
+}
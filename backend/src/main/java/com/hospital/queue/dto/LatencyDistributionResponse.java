@@ -0,0 +1,17 @@
+package com.hospital.queue.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LatencyDistributionResponse {
+    private LocalDate from;
+    private LocalDate to;
+    private LatencyPercentiles waitTime;
+    private LatencyPercentiles serviceTime;
+}
@@ -0,0 +1,16 @@
+package com.hospital.queue.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LatencyPercentiles {
+    private Long count;
+    private Double p50; // in minutes
+    private Double p90;
+    private Double p99;
+    private Double max;
+}
@@ -0,0 +1,16 @@
+package com.hospital.queue.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationReplayResponse {
+    private List<Map<String, Object>> notifications;
+    private Long latestSequence;
+    private Boolean complete; // false when older notifications were dropped; refetch tokens
+}
@@ -0,0 +1,12 @@
+package com.hospital.queue.dto;
+
+import com.hospital.queue.entity.User;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class RoleUpdateRequest {
+
+    @NotNull(message = "Role is required")
+    private User.Role role;
+}
@@ -0,0 +1,28 @@
+package com.hospital.queue.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "cluster_nodes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterNode {
+
+    @Id
+    @Column(name = "node_id", length = 100)
+    private String nodeId;
+
+    @Column(nullable = false)
+    private String url; // base URL other nodes forward mutations to
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt = LocalDateTime.now();
+
+    @Column(name = "last_heartbeat", nullable = false)
+    private LocalDateTime lastHeartbeat = LocalDateTime.now();
+}
@@ -38,4 +38,12 @@ public class QueueAnalytics {
 
     @Column(name = "average_service_time", precision = 10, scale = 2)
     private BigDecimal averageServiceTime;
+
+    // Compressed HdrHistograms of wait and service seconds, merged in place by
+    // LatencyHistogramService; not written by entity saves so the merge is not lost
+    @Column(name = "wait_histogram", length = 8192, updatable = false)
+    private byte[] waitHistogram;
+
+    @Column(name = "service_histogram", length = 8192, updatable = false)
+    private byte[] serviceHistogram;
 }
\ No newline at end of file
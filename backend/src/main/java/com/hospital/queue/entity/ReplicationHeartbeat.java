@@ -0,0 +1,24 @@
+package com.hospital.queue.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single row stamped by the primary and read back from the replica to measure
+ * replication lag; written with plain JDBC by ReplicaLagMonitor
+ */
+@Entity
+@Table(name = "replication_heartbeat")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplicationHeartbeat {
+
+    @Id
+    private Long id;
+
+    @Column(name = "beat_millis", nullable = false)
+    private Long beatMillis;
+}
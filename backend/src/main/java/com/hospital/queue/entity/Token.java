@@ -7,7 +7,9 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tokens")
+@Table(name = "tokens", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_tokens_user_idempotency_key", columnNames = {"user_id", "idempotency_key"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -50,7 +52,12 @@ public class Token {
 
     private Integer priority = 0;
 
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey; // client-supplied, unique per user
+
+    // Append new values only: the token journal stores ordinals. On MySQL the column is a
+    // native enum, so existing schemas need it widened (ALTER TABLE tokens MODIFY status ...)
     public enum TokenStatus {
-        WAITING, IN_PROGRESS, COMPLETED, CANCELLED
+        WAITING, IN_PROGRESS, COMPLETED, CANCELLED, NO_SHOW, EXPIRED
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.hospital.queue.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "user_notifications", indexes = {
+        @Index(name = "idx_user_notifications_user_sequence", columnList = "user_id, sequence")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long sequence;
+
+    @Column(nullable = false)
+    private String channel; // notifications or call
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payload; // JSON as sent over STOMP
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
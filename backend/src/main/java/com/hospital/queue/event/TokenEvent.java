@@ -0,0 +1,56 @@
+package com.hospital.queue.event;
+
+import com.hospital.queue.entity.Token;
+
+import java.time.LocalDateTime;
+
+/**
+ * Token lifecycle change published by TokenService. Listeners that keep in-memory
+ * queue state should use @TransactionalEventListener so they only see committed changes.
+ */
+public record TokenEvent(
+        Type type,
+        Long tokenId,
+        Long departmentId,
+        Long doctorId,
+        Long userId,
+        Integer priority,
+        LocalDateTime bookingTime,
+        Token.TokenStatus oldStatus,
+        Token.TokenStatus newStatus,
+        Integer actualWaitTime,
+        LocalDateTime serviceStartTime,
+        LocalDateTime serviceEndTime,
+        long timestamp
+) {
+
+    public enum Type {
+        CREATED, STATUS_CHANGED
+    }
+
+    public static TokenEvent created(Token token) {
+        return of(Type.CREATED, token, null);
+    }
+
+    public static TokenEvent statusChanged(Token token, Token.TokenStatus oldStatus) {
+        return of(Type.STATUS_CHANGED, token, oldStatus);
+    }
+
+    private static TokenEvent of(Type type, Token token, Token.TokenStatus oldStatus) {
+        return new TokenEvent(
+                type,
+                token.getId(),
+                token.getDepartmentId(),
+                token.getDoctorId(),
+                token.getUserId(),
+                token.getPriority(),
+                token.getBookingTime(),
+                oldStatus,
+                token.getStatus(),
+                token.getActualWaitTime(),
+                token.getServiceStartTime(),
+                token.getServiceEndTime(),
+                System.currentTimeMillis()
+        );
+    }
+}
@@ -0,0 +1,166 @@
+package com.hospital.queue.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: four levels of 64 slots, each level's slot spanning a whole
+ * rotation of the level below, so deadlines up to 64^4 ticks out are held in O(1) per
+ * schedule and cancel. Timers in a higher level are cascaded down once, when the lower
+ * wheel wraps into their slot. Advancing costs one slot visit per tick plus the timers
+ * that actually fire or cascade, independent of how many are pending.
+ * Not thread-safe; callers serialize access.
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Timer<T>[][] slots;
+    private final List<Timer<T>> overdue = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new Timer[LEVELS][SLOTS];
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedule the payload for the deadline; deadlines beyond the wheel's range are
+     * clamped to its last slot and re-cascaded from there
+     */
+    public Timer<T> schedule(long deadlineMillis, T payload) {
+        Timer<T> timer = new Timer<>(Math.max(deadlineMillis / tickMillis, currentTick), payload);
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    public void cancel(Timer<T> timer) {
+        if (timer.level < 0) {
+            return;
+        }
+        if (timer.level == LEVELS) {
+            overdue.remove(timer);
+        } else {
+            unlink(timer);
+        }
+        timer.level = -1;
+        size--;
+    }
+
+    /**
+     * Move the wheel to the time and return the payloads whose deadline has passed
+     */
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Cascade higher levels whose slot the lower wheel has just wrapped into
+            for (int level = 1; level < LEVELS
+                    && (currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0; level++) {
+                int slot = (int) (currentTick >>> (SLOT_BITS * level)) & SLOT_MASK;
+                Timer<T> timer = detach(level, slot);
+                while (timer != null) {
+                    Timer<T> next = timer.next;
+                    insert(timer);
+                    timer = next;
+                }
+            }
+            Timer<T> timer = detach(0, (int) currentTick & SLOT_MASK);
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                timer.level = -1;
+                expired.add(timer.payload);
+                timer = next;
+            }
+        }
+        // Scheduled at or behind the current tick, or cascaded down to it
+        for (Timer<T> timer : overdue) {
+            timer.level = -1;
+            expired.add(timer.payload);
+        }
+        overdue.clear();
+        size -= expired.size();
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void insert(Timer<T> timer) {
+        long delta = timer.deadlineTick - currentTick;
+        if (delta <= 0) {
+            timer.level = LEVELS;
+            timer.prev = null;
+            timer.next = null;
+            overdue.add(timer);
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        long tick = level == LEVELS - 1
+                ? Math.min(timer.deadlineTick, currentTick + (1L << (SLOT_BITS * LEVELS)) - 1)
+                : timer.deadlineTick;
+        int slot = (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+
+        timer.level = level;
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = slots[level][slot];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        slots[level][slot] = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            slots[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    private Timer<T> detach(int level, int slot) {
+        Timer<T> head = slots[level][slot];
+        slots[level][slot] = null;
+        return head;
+    }
+
+    /**
+     * Handle of a scheduled payload, for cancellation
+     */
+    public static final class Timer<T> {
+        private final long deadlineTick;
+        private final T payload;
+        private int level;
+        private int slot;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(long deadlineTick, T payload) {
+            this.deadlineTick = deadlineTick;
+            this.payload = payload;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+    }
+}
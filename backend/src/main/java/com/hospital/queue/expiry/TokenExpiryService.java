@@ -0,0 +1,202 @@
+package com.hospital.queue.expiry;
+
+import com.hospital.queue.cluster.ClusterMembershipService;
+import com.hospital.queue.cluster.ShardOwnershipChangedEvent;
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.Token;
+import com.hospital.queue.event.TokenEvent;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.repository.TokenRepository;
+import com.hospital.queue.service.TokenService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Per-token deadlines on a timing wheel, so abandoned tokens leave the queue without
+ * polling the tokens table: a called (IN_PROGRESS) token not completed within the
+ * call-response timeout becomes NO_SHOW, and a token still WAITING at closing time
+ * becomes EXPIRED. Deadlines follow token events and are rebuilt from the active
+ * tokens on start-up; due tokens are transitioned in batches.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenExpiryService {
+
+    private static final List<Token.TokenStatus> ACTIVE =
+            List.of(Token.TokenStatus.WAITING, Token.TokenStatus.IN_PROGRESS);
+
+    private final TokenRepository tokenRepository;
+    private final DepartmentRepository departmentRepository;
+    private final TokenService tokenService;
+    private final ClusterMembershipService membershipService;
+
+    @Value("${expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${expiry.call-response-minutes:30}")
+    private long callResponseMinutes;
+
+    @Value("${expiry.closing-time:20:00}")
+    private LocalTime closingTime;
+
+    @Value("${expiry.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${expiry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${expiry.retry-delay-seconds:60}")
+    private long retryDelaySeconds;
+
+    private final Map<Long, TimingWheel.Timer<Deadline>> timers = new HashMap<>();
+    private final AtomicLong noShows = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private TimingWheel<Deadline> wheel;
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        wheel = new TimingWheel<>(tickMillis, System.currentTimeMillis());
+        timers.clear();
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        for (Token token : tokenRepository.findByStatusIn(ACTIVE)) {
+            schedule(token.getId(), token.getStatus(), token.getBookingTime(), token.getServiceStartTime());
+        }
+        log.info("Scheduled {} token deadlines in {} ms", timers.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onTokenEvent(TokenEvent event) {
+        if (!enabled) {
+            return;
+        }
+        TimingWheel.Timer<Deadline> previous = timers.remove(event.tokenId());
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+        schedule(event.tokenId(), event.newStatus(), event.bookingTime(), event.serviceStartTime());
+    }
+
+    /**
+     * Shards moved between nodes; this node now owns a different set of hospitals
+     */
+    @EventListener
+    public void onShardOwnershipChanged(ShardOwnershipChangedEvent event) {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${expiry.tick-ms:1000}")
+    public void expireDue() {
+        if (!enabled) {
+            return;
+        }
+        List<Deadline> due;
+        synchronized (this) {
+            due = wheel.advance(System.currentTimeMillis());
+            for (Deadline deadline : due) {
+                TimingWheel.Timer<Deadline> timer = timers.get(deadline.tokenId());
+                if (timer != null && timer.getPayload() == deadline) {
+                    timers.remove(deadline.tokenId());
+                }
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Map<Token.TokenStatus, List<Long>> byStatus = due.stream().collect(Collectors.groupingBy(
+                Deadline::status, Collectors.mapping(Deadline::tokenId, Collectors.toList())));
+        byStatus.forEach((status, tokenIds) -> {
+            for (int from = 0; from < tokenIds.size(); from += batchSize) {
+                expire(tokenIds.subList(from, Math.min(from + batchSize, tokenIds.size())), status);
+            }
+        });
+    }
+
+    public synchronized int getPendingCount() {
+        return wheel != null ? wheel.size() : 0;
+    }
+
+    public long getNoShowCount() {
+        return noShows.get();
+    }
+
+    public long getExpiredCount() {
+        return expirations.get();
+    }
+
+    private void expire(List<Long> tokenIds, Token.TokenStatus expected) {
+        Token.TokenStatus target = expected == Token.TokenStatus.IN_PROGRESS
+                ? Token.TokenStatus.NO_SHOW
+                : Token.TokenStatus.EXPIRED;
+        List<Long> owned = membershipService.isEnabled() ? ownedTokens(tokenIds) : tokenIds;
+        if (owned.isEmpty()) {
+            return;
+        }
+        try {
+            int changed = tokenService.expireTokens(owned, expected, target);
+            (target == Token.TokenStatus.NO_SHOW ? noShows : expirations).addAndGet(changed);
+            log.info("Moved {} {} tokens to {}", changed, expected, target);
+        } catch (RuntimeException e) {
+            log.warn("Could not expire {} {} tokens, retrying in {} s", owned.size(), expected, retryDelaySeconds, e);
+            long retryAt = System.currentTimeMillis() + Duration.ofSeconds(retryDelaySeconds).toMillis();
+            synchronized (this) {
+                for (Long tokenId : owned) {
+                    timers.computeIfAbsent(tokenId, id -> wheel.schedule(retryAt, new Deadline(id, expected)));
+                }
+            }
+        }
+    }
+
+    /**
+     * In cluster mode only the node owning a token's hospital expires it
+     */
+    private List<Long> ownedTokens(List<Long> tokenIds) {
+        return tokenRepository.findAllById(tokenIds).stream()
+                .filter(token -> departmentRepository.findById(token.getDepartmentId())
+                        .map(Department::getHospitalId)
+                        .map(membershipService::isLocal)
+                        .orElse(false))
+                .map(Token::getId)
+                .toList();
+    }
+
+    private void schedule(Long tokenId, Token.TokenStatus status, LocalDateTime bookingTime,
+                          LocalDateTime serviceStartTime) {
+        LocalDateTime deadline;
+        if (status == Token.TokenStatus.WAITING) {
+            LocalDateTime booked = bookingTime != null ? bookingTime : LocalDateTime.now();
+            deadline = booked.toLocalDate().atTime(closingTime);
+            if (!booked.isBefore(deadline)) {
+                deadline = deadline.plusDays(1);
+            }
+        } else if (status == Token.TokenStatus.IN_PROGRESS) {
+            LocalDateTime called = serviceStartTime != null ? serviceStartTime : LocalDateTime.now();
+            deadline = called.plusMinutes(callResponseMinutes);
+        } else {
+            return;
+        }
+        long deadlineMillis = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        timers.put(tokenId, wheel.schedule(deadlineMillis, new Deadline(tokenId, status)));
+    }
+
+    private record Deadline(long tokenId, Token.TokenStatus status) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.hospital.queue.journal;
+
+import com.hospital.queue.entity.Token;
+
+import java.time.LocalDateTime;
+
+/**
+ * Waiting or in-progress token in the journal's queue state
+ */
+public record ActiveToken(
+        long tokenId,
+        Long doctorId,
+        Long userId,
+        Integer priority,
+        LocalDateTime bookingTime,
+        Token.TokenStatus status
+) {
+}
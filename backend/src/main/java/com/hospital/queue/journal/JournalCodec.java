@@ -0,0 +1,111 @@
+package com.hospital.queue.journal;
+
+import com.hospital.queue.entity.Token;
+import com.hospital.queue.event.TokenEvent;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed-size binary layout of a journal record. The leading CRC covers the rest of the
+ * record, so a torn write at the tail of a segment is detected on recovery; a zero
+ * sequence marks the unwritten remainder of a segment. Enum values are stored by
+ * ordinal, so new statuses must be appended to the enum.
+ */
+final class JournalCodec {
+
+    static final int RECORD_SIZE = 96;
+
+    private static final long NONE = Long.MIN_VALUE;
+    private static final int NONE_INT = Integer.MIN_VALUE;
+
+    private JournalCodec() {
+    }
+
+    static void write(ByteBuffer buffer, int offset, long sequence, TokenEvent event) {
+        ByteBuffer record = buffer.slice(offset, RECORD_SIZE);
+        record.putLong(4, sequence);
+        record.put(12, (byte) event.type().ordinal());
+        record.put(13, event.oldStatus() != null ? (byte) event.oldStatus().ordinal() : -1);
+        record.put(14, (byte) event.newStatus().ordinal());
+        record.putLong(16, event.tokenId());
+        record.putLong(24, event.departmentId());
+        record.putLong(32, orNone(event.doctorId()));
+        record.putLong(40, orNone(event.userId()));
+        record.putInt(48, event.priority() != null ? event.priority() : NONE_INT);
+        record.putInt(52, event.actualWaitTime() != null ? event.actualWaitTime() : NONE_INT);
+        record.putLong(56, micros(event.bookingTime()));
+        record.putLong(64, micros(event.serviceStartTime()));
+        record.putLong(72, micros(event.serviceEndTime()));
+        record.putLong(80, event.timestamp());
+        record.putInt(0, checksum(record));
+    }
+
+    /**
+     * Sequence of the record at the offset, or 0 if the slot is empty or torn
+     */
+    static long sequenceAt(ByteBuffer buffer, int offset) {
+        ByteBuffer record = buffer.slice(offset, RECORD_SIZE);
+        long sequence = record.getLong(4);
+        if (sequence == 0 || record.getInt(0) != checksum(record)) {
+            return 0;
+        }
+        return sequence;
+    }
+
+    static JournalEntry read(ByteBuffer buffer, int offset) {
+        ByteBuffer record = buffer.slice(offset, RECORD_SIZE);
+        Token.TokenStatus[] statuses = Token.TokenStatus.values();
+        byte oldStatus = record.get(13);
+        int priority = record.getInt(48);
+        int actualWaitTime = record.getInt(52);
+        TokenEvent event = new TokenEvent(
+                TokenEvent.Type.values()[record.get(12)],
+                record.getLong(16),
+                record.getLong(24),
+                orNull(record.getLong(32)),
+                orNull(record.getLong(40)),
+                priority != NONE_INT ? priority : null,
+                dateTime(record.getLong(56)),
+                oldStatus >= 0 ? statuses[oldStatus] : null,
+                statuses[record.get(14)],
+                actualWaitTime != NONE_INT ? actualWaitTime : null,
+                dateTime(record.getLong(64)),
+                dateTime(record.getLong(72)),
+                record.getLong(80)
+        );
+        return new JournalEntry(record.getLong(4), event);
+    }
+
+    private static int checksum(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.slice(4, RECORD_SIZE - 4));
+        return (int) crc.getValue();
+    }
+
+    private static long orNone(Long value) {
+        return value != null ? value : NONE;
+    }
+
+    private static Long orNull(long value) {
+        return value != NONE ? value : null;
+    }
+
+    // LocalDateTime has no zone; UTC is only the fixed reference for the epoch offset
+    static long micros(LocalDateTime time) {
+        if (time == null) {
+            return NONE;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime dateTime(long micros) {
+        if (micros == NONE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,9 @@
+package com.hospital.queue.journal;
+
+import com.hospital.queue.event.TokenEvent;
+
+/**
+ * Token event as recorded in the journal, with its position in the journal
+ */
+public record JournalEntry(long sequence, TokenEvent event) {
+}
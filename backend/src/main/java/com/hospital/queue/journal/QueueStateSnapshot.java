@@ -0,0 +1,146 @@
+package com.hospital.queue.journal;
+
+import com.hospital.queue.entity.Token;
+import com.hospital.queue.event.TokenEvent;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Active (waiting and in-progress) tokens per department, as of a journal sequence.
+ * Built by replaying token events, and written compactly as a snapshot so recovery
+ * only replays the journal tail. Not thread-safe; TokenJournal guards it.
+ */
+class QueueStateSnapshot {
+
+    private static final int FORMAT = 1;
+
+    private final Map<Long, Map<Long, ActiveToken>> departments = new HashMap<>();
+    private long sequence;
+
+    QueueStateSnapshot() {
+    }
+
+    QueueStateSnapshot(long sequence) {
+        this.sequence = sequence;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    int activeCount() {
+        return departments.values().stream().mapToInt(Map::size).sum();
+    }
+
+    int departmentCount() {
+        return departments.size();
+    }
+
+    /**
+     * Number of active tokens per department and status
+     */
+    Map<Long, Map<Token.TokenStatus, Long>> statusCounts() {
+        Map<Long, Map<Token.TokenStatus, Long>> counts = new HashMap<>();
+        departments.forEach((id, tokens) -> tokens.values().forEach(token -> counts
+                .computeIfAbsent(id, d -> new EnumMap<>(Token.TokenStatus.class))
+                .merge(token.status(), 1L, Long::sum)));
+        return counts;
+    }
+
+    void apply(long eventSequence, TokenEvent event) {
+        sequence = eventSequence;
+        Token.TokenStatus status = event.newStatus();
+        if (status == Token.TokenStatus.WAITING || status == Token.TokenStatus.IN_PROGRESS) {
+            departments.computeIfAbsent(event.departmentId(), id -> new LinkedHashMap<>())
+                    .put(event.tokenId(), new ActiveToken(event.tokenId(), event.doctorId(), event.userId(),
+                            event.priority(), event.bookingTime(), status));
+        } else {
+            remove(event.departmentId(), event.tokenId());
+        }
+    }
+
+    void add(Long departmentId, ActiveToken token) {
+        departments.computeIfAbsent(departmentId, id -> new LinkedHashMap<>()).put(token.tokenId(), token);
+    }
+
+    List<ActiveToken> activeTokens(Long departmentId) {
+        return List.copyOf(departments.getOrDefault(departmentId, Map.of()).values());
+    }
+
+    QueueStateSnapshot copy() {
+        QueueStateSnapshot copy = new QueueStateSnapshot();
+        copy.sequence = sequence;
+        departments.forEach((id, tokens) -> copy.departments.put(id, new LinkedHashMap<>(tokens)));
+        return copy;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT);
+        out.writeLong(sequence);
+        out.writeInt(departments.size());
+        for (Map.Entry<Long, Map<Long, ActiveToken>> department : departments.entrySet()) {
+            out.writeLong(department.getKey());
+            out.writeInt(department.getValue().size());
+            for (ActiveToken token : department.getValue().values()) {
+                out.writeLong(token.tokenId());
+                writeNullable(out, token.doctorId());
+                writeNullable(out, token.userId());
+                out.writeInt(token.priority() != null ? token.priority() : 0);
+                out.writeLong(JournalCodec.micros(token.bookingTime()));
+                out.writeByte(token.status().ordinal());
+            }
+        }
+    }
+
+    static QueueStateSnapshot readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != FORMAT) {
+            throw new IOException("Unknown snapshot format");
+        }
+        QueueStateSnapshot snapshot = new QueueStateSnapshot();
+        snapshot.sequence = in.readLong();
+        Token.TokenStatus[] statuses = Token.TokenStatus.values();
+        int departmentCount = in.readInt();
+        for (int d = 0; d < departmentCount; d++) {
+            long departmentId = in.readLong();
+            int tokenCount = in.readInt();
+            Map<Long, ActiveToken> tokens = new LinkedHashMap<>();
+            for (int t = 0; t < tokenCount; t++) {
+                long tokenId = in.readLong();
+                Long doctorId = readNullable(in);
+                Long userId = readNullable(in);
+                int priority = in.readInt();
+                LocalDateTime bookingTime = JournalCodec.dateTime(in.readLong());
+                Token.TokenStatus status = statuses[in.readByte()];
+                tokens.put(tokenId, new ActiveToken(tokenId, doctorId, userId, priority,
+                        bookingTime, status));
+            }
+            snapshot.departments.put(departmentId, tokens);
+        }
+        return snapshot;
+    }
+
+    private void remove(Long departmentId, Long tokenId) {
+        Map<Long, ActiveToken> tokens = departments.get(departmentId);
+        if (tokens != null) {
+            tokens.remove(tokenId);
+            if (tokens.isEmpty()) {
+                departments.remove(departmentId);
+            }
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+}
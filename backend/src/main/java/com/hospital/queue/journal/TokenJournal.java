@@ -0,0 +1,484 @@
+package com.hospital.queue.journal;
+
+import com.hospital.queue.entity.Token;
+import com.hospital.queue.event.TokenEvent;
+import com.hospital.queue.repository.TokenRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, memory-mapped journal of committed token events, in fixed-size segment
+ * files, plus periodic snapshots of the active tokens per department. On start-up the
+ * latest snapshot is loaded and only the journal tail after it is replayed, so live queue
+ * state is rebuilt without scanning the tokens table; the same journal serves token
+ * history and audit replays. The tokens table stays the source of truth: if the recovered
+ * active counts per department and status disagree with it, so a lost status change shows
+ * even when the total still matches, the state is rebuilt from the table. Segments are
+ * indexed by the time of their first event, so time-bounded reads skip older segments.
+ */
+@Component
+@Slf4j
+public class TokenJournal {
+
+    private static final List<Token.TokenStatus> ACTIVE =
+            List.of(Token.TokenStatus.WAITING, Token.TokenStatus.IN_PROGRESS);
+
+    private final TokenRepository tokenRepository;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final Duration retention;
+    private final boolean clustered;
+
+    private final NavigableMap<Long, Path> segments = new TreeMap<>();
+    private final Map<Long, Long> segmentStartMillis = new HashMap<>();
+    private QueueStateSnapshot state = new QueueStateSnapshot();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int position;
+    private long lastSequence;
+    private long snapshotSequence;
+    private boolean ready;
+    private long recoveryMillis;
+
+    public TokenJournal(
+            TokenRepository tokenRepository,
+            @Value("${journal.enabled:true}") boolean enabled,
+            @Value("${journal.directory:data/journal}") String directory,
+            @Value("${journal.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${journal.retention-days:30}") int retentionDays,
+            @Value("${cluster.enabled:false}") boolean clustered
+    ) {
+        this.tokenRepository = tokenRepository;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        // Whole records only, so a record never spans two segments
+        this.segmentBytes = (int) Math.min(Integer.MAX_VALUE, (long) segmentSizeMb << 20)
+                / JournalCodec.RECORD_SIZE * JournalCodec.RECORD_SIZE;
+        this.retention = Duration.ofDays(retentionDays);
+        this.clustered = clustered;
+    }
+
+    @PostConstruct
+    public synchronized void recover() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Long first = sequenceOf(file, "journal-", ".log");
+                if (first != null) {
+                    segments.put(first, file);
+                }
+            });
+        }
+        for (Map.Entry<Long, Path> file : segments.entrySet()) {
+            Long firstMillis = firstTimestamp(file.getValue());
+            if (firstMillis != null) {
+                segmentStartMillis.put(file.getKey(), firstMillis);
+            }
+        }
+        openTail();
+
+        QueueStateSnapshot snapshot = readLatestSnapshot();
+        int replayed = 0;
+        if (snapshot != null && snapshot.getSequence() <= lastSequence) {
+            snapshotSequence = snapshot.getSequence();
+            state = snapshot;
+            replayed = replay(snapshotSequence + 1, lastSequence,
+                    entry -> state.apply(entry.sequence(), entry.event()));
+        }
+
+        Map<Long, Map<Token.TokenStatus, Long>> expected = new HashMap<>();
+        for (TokenRepository.StatusCount count : tokenRepository.countByDepartmentAndStatusIn(ACTIVE)) {
+            expected.computeIfAbsent(count.getDepartmentId(), id -> new EnumMap<>(Token.TokenStatus.class))
+                    .put(count.getStatus(), count.getCount());
+        }
+        Map<Long, Map<Token.TokenStatus, Long>> recovered = state.statusCounts();
+        if (snapshot == null || snapshot.getSequence() > lastSequence || !recovered.equals(expected)) {
+            if (snapshot != null) {
+                log.warn("Journal state {} disagrees with the tokens table {}; rebuilding", recovered, expected);
+            }
+            // Snapshots ahead of the journal (its segments were lost) would shadow new ones
+            for (Path stale : snapshotFiles().tailMap(lastSequence, false).values()) {
+                Files.deleteIfExists(stale);
+            }
+            state = new QueueStateSnapshot(lastSequence);
+            for (Token token : tokenRepository.findByStatusIn(ACTIVE)) {
+                state.add(token.getDepartmentId(), new ActiveToken(token.getId(),
+                        token.getDoctorId(), token.getUserId(), token.getPriority(), token.getBookingTime(),
+                        token.getStatus()));
+            }
+            writeSnapshot(state.copy());
+        }
+
+        recoveryMillis = (System.nanoTime() - started) / 1_000_000;
+        ready = true;
+        log.info("Recovered token journal in {} ms: snapshot at {}, {} events replayed, {} active tokens in {} departments",
+                recoveryMillis, snapshotSequence, replayed, state.activeCount(), state.departmentCount());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onTokenEvent(TokenEvent event) {
+        if (!ready) {
+            return;
+        }
+        try {
+            if (position + JournalCodec.RECORD_SIZE > segmentBytes) {
+                roll();
+            }
+            long sequence = lastSequence + 1;
+            if (position == 0) {
+                segmentStartMillis.put(sequence, event.timestamp());
+            }
+            JournalCodec.write(segment, position, sequence, event);
+            position += JournalCodec.RECORD_SIZE;
+            lastSequence = sequence;
+            state.apply(sequence, event);
+        } catch (IOException e) {
+            // The tokens table already holds the change; a gap only costs a rebuild on next start
+            log.error("Could not append token event {} to the journal", event.tokenId(), e);
+        }
+    }
+
+    /**
+     * Active tokens of the department as of the latest committed event; empty when the
+     * journal is off, or in cluster mode where other nodes change the queues too
+     */
+    public synchronized Optional<List<ActiveToken>> activeTokens(Long departmentId) {
+        if (!ready || clustered) {
+            return Optional.empty();
+        }
+        return Optional.of(state.activeTokens(departmentId));
+    }
+
+    /**
+     * Every recorded event of the token, oldest first; empty if its creation is no longer
+     * retained. Segments are searched newest first for the CREATED event, so recent tokens
+     * are found quickly, and only the journal from there on is read.
+     */
+    public List<JournalEntry> history(Long tokenId) {
+        JournalEntry created = findCreated(tokenId);
+        if (created == null) {
+            return List.of();
+        }
+        List<JournalEntry> history = new ArrayList<>();
+        replay(created.sequence(), entry -> {
+            if (entry.event().tokenId().equals(tokenId)) {
+                history.add(entry);
+            }
+        });
+        return history;
+    }
+
+    /**
+     * Events of the department recorded within [from, to)
+     */
+    public List<JournalEntry> events(Long departmentId, Instant from, Instant to) {
+        List<JournalEntry> events = new ArrayList<>();
+        replay(firstSequenceFrom(from), entry -> {
+            long timestamp = entry.event().timestamp();
+            if (entry.event().departmentId().equals(departmentId)
+                    && timestamp >= from.toEpochMilli() && timestamp < to.toEpochMilli()) {
+                events.add(entry);
+            }
+        });
+        return events;
+    }
+
+    /**
+     * Feed every retained event from the sequence onwards to the consumer, in order
+     */
+    public int replay(long fromSequence, Consumer<JournalEntry> consumer) {
+        long toSequence;
+        synchronized (this) {
+            if (!ready) {
+                return 0;
+            }
+            toSequence = lastSequence;
+        }
+        try {
+            return replay(fromSequence, toSequence, consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${journal.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (ready) {
+            segment.force();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${journal.snapshot-interval-ms:300000}",
+            initialDelayString = "${journal.snapshot-interval-ms:300000}")
+    public void snapshot() throws IOException {
+        QueueStateSnapshot copy;
+        synchronized (this) {
+            if (!ready || state.getSequence() == snapshotSequence) {
+                return;
+            }
+            segment.force();
+            copy = state.copy();
+        }
+        writeSnapshot(copy);
+        deleteExpired();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        snapshot();
+        synchronized (this) {
+            if (channel != null) {
+                segment.force();
+                channel.close();
+            }
+            ready = false;
+        }
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    /**
+     * First sequence of the segment before the newest one started by the time: events are
+     * stamped before they commit, so a few may land in the segment after their time
+     */
+    private synchronized long firstSequenceFrom(Instant time) {
+        Long previous = null;
+        Long start = null;
+        for (Long first : segments.keySet()) {
+            Long started = segmentStartMillis.get(first);
+            if (started == null || started > time.toEpochMilli()) {
+                break;
+            }
+            previous = start;
+            start = first;
+        }
+        return previous != null ? previous : 1;
+    }
+
+    private JournalEntry findCreated(Long tokenId) {
+        long toSequence;
+        List<Path> files;
+        synchronized (this) {
+            if (!ready) {
+                return null;
+            }
+            toSequence = lastSequence;
+            files = List.copyOf(segments.descendingMap().values());
+        }
+        for (Path file : files) {
+            try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = reader.map(FileChannel.MapMode.READ_ONLY, 0,
+                        Math.min(reader.size(), segmentBytes));
+                for (int offset = 0; offset + JournalCodec.RECORD_SIZE <= buffer.capacity();
+                     offset += JournalCodec.RECORD_SIZE) {
+                    long sequence = JournalCodec.sequenceAt(buffer, offset);
+                    if (sequence == 0 || sequence > toSequence) {
+                        break;
+                    }
+                    JournalEntry entry = JournalCodec.read(buffer, offset);
+                    if (entry.event().type() == TokenEvent.Type.CREATED && entry.event().tokenId().equals(tokenId)) {
+                        return entry;
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // removed by retention while searching; older segments are gone too
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return null;
+    }
+
+    private Long firstTimestamp(Path file) throws IOException {
+        try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (reader.size() < JournalCodec.RECORD_SIZE) {
+                return null;
+            }
+            MappedByteBuffer buffer = reader.map(FileChannel.MapMode.READ_ONLY, 0, JournalCodec.RECORD_SIZE);
+            return JournalCodec.sequenceAt(buffer, 0) != 0 ? JournalCodec.read(buffer, 0).event().timestamp() : null;
+        }
+    }
+
+    /**
+     * Map the newest segment and find the end of its intact records
+     */
+    private void openTail() throws IOException {
+        if (segments.isEmpty()) {
+            openSegment(1);
+            return;
+        }
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        channel = FileChannel.open(last.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        lastSequence = last.getKey() - 1;
+        position = 0;
+        while (position + JournalCodec.RECORD_SIZE <= segmentBytes
+                && JournalCodec.sequenceAt(segment, position) == lastSequence + 1) {
+            lastSequence++;
+            position += JournalCodec.RECORD_SIZE;
+        }
+    }
+
+    private void roll() throws IOException {
+        segment.force();
+        channel.close();
+        openSegment(lastSequence + 1);
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path file = directory.resolve(String.format("journal-%020d.log", firstSequence));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        segments.put(firstSequence, file);
+        lastSequence = firstSequence - 1;
+        position = 0;
+    }
+
+    private int replay(long fromSequence, long toSequence, Consumer<JournalEntry> consumer) throws IOException {
+        List<Map.Entry<Long, Path>> files;
+        synchronized (this) {
+            Long start = segments.floorKey(fromSequence);
+            files = List.copyOf((start != null ? segments.tailMap(start, true) : segments).entrySet());
+        }
+        int replayed = 0;
+        for (Map.Entry<Long, Path> file : files) {
+            if (file.getKey() > toSequence) {
+                break;
+            }
+            try (FileChannel reader = FileChannel.open(file.getValue(), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = reader.map(FileChannel.MapMode.READ_ONLY, 0,
+                        Math.min(reader.size(), segmentBytes));
+                for (int offset = 0; offset + JournalCodec.RECORD_SIZE <= buffer.capacity();
+                     offset += JournalCodec.RECORD_SIZE) {
+                    long sequence = JournalCodec.sequenceAt(buffer, offset);
+                    if (sequence == 0 || sequence > toSequence) {
+                        break;
+                    }
+                    if (sequence >= fromSequence) {
+                        consumer.accept(JournalCodec.read(buffer, offset));
+                        replayed++;
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // removed by retention while replaying
+            }
+        }
+        return replayed;
+    }
+
+    private QueueStateSnapshot readLatestSnapshot() throws IOException {
+        for (Path file : snapshotFiles().descendingMap().values()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                return QueueStateSnapshot.readFrom(in);
+            } catch (IOException e) {
+                log.warn("Skipping unreadable journal snapshot {}", file, e);
+            }
+        }
+        return null;
+    }
+
+    private void writeSnapshot(QueueStateSnapshot snapshot) throws IOException {
+        Path file = directory.resolve(String.format("snapshot-%020d.bin", snapshot.getSequence()));
+        Path temp = directory.resolve(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            snapshot.writeTo(out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        synchronized (this) {
+            snapshotSequence = snapshot.getSequence();
+        }
+        log.debug("Wrote journal snapshot at {}", snapshot.getSequence());
+    }
+
+    /**
+     * Keep the two newest snapshots, and segments that are younger than the retention
+     * period or still needed to replay after the oldest kept snapshot
+     */
+    private void deleteExpired() throws IOException {
+        NavigableMap<Long, Path> snapshots = snapshotFiles();
+        while (snapshots.size() > 2) {
+            Files.deleteIfExists(snapshots.pollFirstEntry().getValue());
+        }
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        long needed = snapshots.firstKey() + 1;
+        Instant cutoff = Instant.now().minus(retention);
+
+        List<Map.Entry<Long, Path>> candidates;
+        synchronized (this) {
+            candidates = new ArrayList<>(segments.headMap(segments.lastKey()).entrySet());
+        }
+        for (Map.Entry<Long, Path> candidate : candidates) {
+            Long next;
+            synchronized (this) {
+                next = segments.higherKey(candidate.getKey());
+            }
+            if (next == null || next > needed
+                    || Files.getLastModifiedTime(candidate.getValue()).toInstant().isAfter(cutoff)) {
+                break;
+            }
+            synchronized (this) {
+                segments.remove(candidate.getKey());
+                segmentStartMillis.remove(candidate.getKey());
+            }
+            Files.deleteIfExists(candidate.getValue());
+            log.info("Deleted expired journal segment {}", candidate.getValue());
+        }
+    }
+
+    private NavigableMap<Long, Path> snapshotFiles() throws IOException {
+        NavigableMap<Long, Path> snapshots = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Long sequence = sequenceOf(file, "snapshot-", ".bin");
+                if (sequence != null) {
+                    snapshots.put(sequence, file);
+                }
+            });
+        }
+        return snapshots;
+    }
+
+    private static Long sequenceOf(Path file, String prefix, String suffix) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(prefix) || !name.endsWith(suffix)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.hospital.queue.metrics;
+
+import com.hospital.queue.alert.QueueSurgeDetector;
+import com.hospital.queue.expiry.TokenExpiryService;
+import com.hospital.queue.journal.TokenJournal;
+import com.hospital.queue.ratelimit.BookingRateLimiter;
+import com.hospital.queue.ratelimit.DatabaseConcurrencyLimitFilter;
+import com.hospital.queue.security.PasswordHashingExecutor;
+import com.hospital.queue.service.EventStreamService;
+import com.hospital.queue.service.IdempotencyService;
+import com.hospital.queue.websocket.NotificationOutbox;
+import com.hospital.queue.websocket.SubscriptionRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the counters the queue components already keep, read at scrape time
+ * so nothing is added to their hot paths
+ */
+@Component
+@RequiredArgsConstructor
+public class QueueMeterBinder implements MeterBinder {
+
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final EventStreamService eventStreamService;
+    private final NotificationOutbox notificationOutbox;
+    private final BookingRateLimiter bookingRateLimiter;
+    private final IdempotencyService idempotencyService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final DatabaseConcurrencyLimitFilter concurrencyLimitFilter;
+    private final TokenJournal tokenJournal;
+    private final TokenExpiryService tokenExpiryService;
+    private final QueueSurgeDetector surgeDetector;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("queue.stomp.sessions", subscriptionRegistry, SubscriptionRegistry::getSessionCount)
+                .description("Connected STOMP sessions")
+                .register(registry);
+        Gauge.builder("queue.sse.connections", eventStreamService, EventStreamService::getConnectionCount)
+                .description("Open SSE streams")
+                .register(registry);
+        Gauge.builder("queue.outbox.users", notificationOutbox, NotificationOutbox::getBufferedUserCount)
+                .description("Users with buffered notifications")
+                .register(registry);
+
+        FunctionCounter.builder("queue.booking.rejected", bookingRateLimiter, BookingRateLimiter::getUserRejections)
+                .description("Bookings rejected by the rate limiter")
+                .tag("scope", "user")
+                .register(registry);
+        FunctionCounter.builder("queue.booking.rejected", bookingRateLimiter, BookingRateLimiter::getDepartmentRejections)
+                .description("Bookings rejected by the rate limiter")
+                .tag("scope", "department")
+                .register(registry);
+        FunctionCounter.builder("queue.booking.idempotent.replays", idempotencyService, IdempotencyService::getReplayCount)
+                .description("Token creations answered from the idempotency store")
+                .register(registry);
+
+        Gauge.builder("queue.expiry.pending", tokenExpiryService, TokenExpiryService::getPendingCount)
+                .description("Token deadlines waiting on the timing wheel")
+                .register(registry);
+        FunctionCounter.builder("queue.expiry.transitions", tokenExpiryService, TokenExpiryService::getNoShowCount)
+                .description("Tokens moved out of the queue by their deadline")
+                .tag("status", "NO_SHOW")
+                .register(registry);
+        FunctionCounter.builder("queue.expiry.transitions", tokenExpiryService, TokenExpiryService::getExpiredCount)
+                .description("Tokens moved out of the queue by their deadline")
+                .tag("status", "EXPIRED")
+                .register(registry);
+
+        FunctionCounter.builder("queue.alerts", surgeDetector, QueueSurgeDetector::getRaisedCount)
+                .description("Queue surge alerts sent to admins")
+                .tag("outcome", "sent")
+                .register(registry);
+        FunctionCounter.builder("queue.alerts", surgeDetector, QueueSurgeDetector::getSuppressedCount)
+                .description("Queue surge alerts sent to admins")
+                .tag("outcome", "rate_limited")
+                .register(registry);
+
+        FunctionCounter.builder("queue.journal.events", tokenJournal, TokenJournal::getLastSequence)
+                .description("Token events appended to the journal")
+                .register(registry);
+        Gauge.builder("queue.journal.recovery", tokenJournal, journal -> journal.getRecoveryMillis() / 1000.0)
+                .description("Seconds the last start-up spent recovering queue state from the journal")
+                .baseUnit("seconds")
+                .register(registry);
+
+        Gauge.builder("http.concurrency.in_flight", concurrencyLimitFilter, DatabaseConcurrencyLimitFilter::getInFlight)
+                .description("API requests holding a concurrency permit")
+                .register(registry);
+        Gauge.builder("http.concurrency.waiting", concurrencyLimitFilter, DatabaseConcurrencyLimitFilter::getWaiting)
+                .description("API requests waiting for a concurrency permit")
+                .register(registry);
+        FunctionCounter.builder("http.concurrency.rejected", concurrencyLimitFilter,
+                        DatabaseConcurrencyLimitFilter::getRejectedCount)
+                .description("API requests turned away with 503 by the concurrency limit")
+                .register(registry);
+
+        Gauge.builder("auth.hashing.active", passwordHashingExecutor, PasswordHashingExecutor::getActiveCount)
+                .description("Password hashing threads busy")
+                .register(registry);
+        Gauge.builder("auth.hashing.queued", passwordHashingExecutor, PasswordHashingExecutor::getQueueDepth)
+                .description("Password hashing tasks waiting for a thread")
+                .register(registry);
+    }
+}
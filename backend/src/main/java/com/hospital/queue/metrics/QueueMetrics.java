@@ -0,0 +1,155 @@
+package com.hospital.queue.metrics;
+
+import com.hospital.queue.entity.Token;
+import com.hospital.queue.event.TokenEvent;
+import com.hospital.queue.repository.TokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application meters for queue operations. Tags are limited to small fixed sets
+ * (outcome, token status, event name, failure reason) plus the department id for
+ * queue gauges; meters are looked up once and cached so the hot path only records.
+ */
+@Component
+@Slf4j
+public class QueueMetrics {
+
+    private final MeterRegistry registry;
+    private final ObjectProvider<TokenRepository> tokenRepository;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> waiting = new ConcurrentHashMap<>();
+
+    public QueueMetrics(MeterRegistry registry, ObjectProvider<TokenRepository> tokenRepository) {
+        this.registry = registry;
+        this.tokenRepository = tokenRepository;
+    }
+
+    /**
+     * Time the surrounding transaction until it commits or rolls back; outside a
+     * transaction nothing is recorded. The status tag is optional
+     */
+    public void timeTransaction(String name, String status) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(registry);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int completion) {
+                String outcome = completion == STATUS_COMMITTED ? "success" : "error";
+                sample.stop(timer(name, status, outcome));
+            }
+        });
+    }
+
+    public Timer.Sample startSample() {
+        return Timer.start(registry);
+    }
+
+    public void broadcastSent(String event, Timer.Sample sample) {
+        sample.stop(timers.computeIfAbsent("queue.broadcast|" + event, key -> Timer.builder("queue.broadcast")
+                .description("Time to hand a queue event to STOMP subscribers and SSE streams")
+                .tag("event", event)
+                .register(registry)));
+    }
+
+    public void broadcastSkipped(String event) {
+        counter("queue.broadcast.skipped", "event", event,
+                "Queue events not built because nobody was watching").increment();
+    }
+
+    public void mlPrediction(Duration duration, boolean fallback) {
+        String outcome = fallback ? "fallback" : "success";
+        timers.computeIfAbsent("ml.prediction|" + outcome, key -> Timer.builder("ml.prediction")
+                .description("Latency of wait-time predictions from the ML service")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)).record(duration);
+    }
+
+    public void mlFallback(String reason) {
+        counter("ml.prediction.fallback", "reason", reason,
+                "Predictions answered with the default estimate").increment();
+    }
+
+    public void authFailure(String reason) {
+        counter("auth.failures", "reason", reason, "Rejected authentication attempts").increment();
+    }
+
+    /**
+     * Keep the waiting-count gauge of the token's department current
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTokenEvent(TokenEvent event) {
+        AtomicLong count = waiting.get(event.departmentId());
+        if (count == null) {
+            registerWaitingGauge(event.departmentId());
+            return; // seeded from the database after this event committed
+        }
+        if (event.type() == TokenEvent.Type.CREATED) {
+            count.incrementAndGet();
+        } else {
+            if (event.oldStatus() == Token.TokenStatus.WAITING) {
+                count.decrementAndGet();
+            }
+            if (event.newStatus() == Token.TokenStatus.WAITING) {
+                count.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Correct drift from events that raced the initial count
+     */
+    @Scheduled(fixedDelayString = "${metrics.queue-resync-ms:60000}")
+    public void resyncWaiting() {
+        waiting.forEach((departmentId, count) -> count.set(
+                tokenRepository.getObject().countByDepartmentIdAndStatus(departmentId, Token.TokenStatus.WAITING)));
+    }
+
+    private void registerWaitingGauge(Long departmentId) {
+        // Counted before touching the map so no lock is held across the query
+        AtomicLong count = new AtomicLong(
+                tokenRepository.getObject().countByDepartmentIdAndStatus(departmentId, Token.TokenStatus.WAITING));
+        if (waiting.putIfAbsent(departmentId, count) == null) {
+            Gauge.builder("queue.waiting", count, AtomicLong::get)
+                    .description("Tokens waiting in the department queue")
+                    .tag("department", String.valueOf(departmentId))
+                    .register(registry);
+        }
+    }
+
+    private Timer timer(String name, String status, String outcome) {
+        return timers.computeIfAbsent(name + "|" + status + "|" + outcome, key -> {
+            Timer.Builder builder = Timer.builder(name).tag("outcome", outcome);
+            if (status != null) {
+                builder.tag("status", status);
+            }
+            return builder.register(registry);
+        });
+    }
+
+    private Counter counter(String name, String tag, String value, String description) {
+        return counters.computeIfAbsent(name + "|" + value, key -> Counter.builder(name)
+                .description(description)
+                .tag(tag, value)
+                .register(registry));
+    }
+}
@@ -0,0 +1,71 @@
+package com.hospital.queue.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for token creation, checked before any database or ML work.
+ * The per-client bucket runs first so one noisy client is turned away without
+ * spending its department's shared budget; when the department is busy the client's
+ * permit is refunded, so retrying a busy department does not use up the client's
+ * own allowance. Clients are keyed by the authenticated
+ * user, or by remote address when anonymous, never by ids from the request body.
+ */
+@Component
+@Slf4j
+public class BookingRateLimiter {
+
+    private final TokenBucketRateLimiter<String> clientLimiter;
+    private final TokenBucketRateLimiter<Long> departmentLimiter;
+
+    public BookingRateLimiter(
+            @Value("${rate-limit.booking.user.permits-per-minute:6}") double userPermitsPerMinute,
+            @Value("${rate-limit.booking.user.burst:3}") int userBurst,
+            @Value("${rate-limit.booking.department.permits-per-second:20}") double departmentPermitsPerSecond,
+            @Value("${rate-limit.booking.department.burst:50}") int departmentBurst,
+            @Value("${rate-limit.booking.max-keys:100000}") long maxKeys
+    ) {
+        this.clientLimiter = new TokenBucketRateLimiter<>(userPermitsPerMinute / 60.0, userBurst, maxKeys);
+        this.departmentLimiter = new TokenBucketRateLimiter<>(departmentPermitsPerSecond, departmentBurst, maxKeys);
+    }
+
+    /**
+     * @param clientKey caller identity from {@link #clientKey}
+     */
+    public void acquire(String clientKey, Long departmentId) {
+        long clientWait = clientLimiter.tryAcquire(clientKey);
+        if (clientWait > 0) {
+            log.debug("Booking rate limit hit for client {}", clientKey);
+            throw new RateLimitExceededException("Too many bookings, please wait", toRetryAfter(clientWait));
+        }
+
+        long departmentWait = departmentLimiter.tryAcquire(departmentId);
+        if (departmentWait > 0) {
+            clientLimiter.refund(clientKey);
+            log.debug("Booking rate limit hit for department {}", departmentId);
+            throw new RateLimitExceededException("Department is busy, please retry", toRetryAfter(departmentWait));
+        }
+    }
+
+    /**
+     * The authenticated user's id, or the remote address for anonymous callers
+     */
+    public static String clientKey(Long principalId, String remoteAddress) {
+        return principalId != null ? "user:" + principalId : "ip:" + remoteAddress;
+    }
+
+    public long getUserRejections() {
+        return clientLimiter.getRejectedCount();
+    }
+
+    public long getDepartmentRejections() {
+        return departmentLimiter.getRejectedCount();
+    }
+
+    private static long toRetryAfter(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+}
@@ -0,0 +1,102 @@
+package com.hospital.queue.ratelimit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds API requests in flight to a multiple of the JDBC pool size. With virtual
+ * threads Tomcat no longer caps concurrency at its worker pool, and thousands of
+ * requests would otherwise queue inside Hikari until they hit its connection
+ * timeout. Requests that cannot get a permit within the wait time get 503 with
+ * Retry-After. Enabled by default only in virtual-thread mode.
+ */
+@Component
+@Order(-101) // ahead of the Spring Security chain (-100), whose JWT filter may load the principal
+@Slf4j
+public class DatabaseConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final int maxInFlight;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    public DatabaseConcurrencyLimitFilter(
+            @Value("${concurrency-limit.enabled:${spring.threads.virtual.enabled:false}}") boolean enabled,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${concurrency-limit.requests-per-connection:4}") int requestsPerConnection,
+            @Value("${concurrency-limit.max-wait-ms:2000}") long maxWaitMillis
+    ) {
+        this.enabled = enabled;
+        this.maxInFlight = Math.max(1, poolSize * requestsPerConnection);
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(maxInFlight, true);
+        if (enabled) {
+            log.info("API concurrency limited to {} requests in flight ({} connections x {})",
+                    maxInFlight, poolSize, requestsPerConnection);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        // SSE streams hold their request open without using a connection
+        return !enabled || !path.startsWith("/api/") || path.startsWith("/api/stream/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            // Written directly: sendError would dispatch to /error, which security answers with 403
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType("text/plain");
+            response.getWriter().write("Server busy, please retry");
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,17 @@
+package com.hospital.queue.ratelimit;
+
+import lombok.Getter;
+
+/**
+ * Raised when a booking is rejected by the rate limiter; mapped to 429 with Retry-After.
+ */
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
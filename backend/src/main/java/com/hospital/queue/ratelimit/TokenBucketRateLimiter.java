@@ -0,0 +1,76 @@
+package com.hospital.queue.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free token bucket per key, implemented as GCRA: each bucket is a single
+ * AtomicLong holding its theoretical arrival time, updated with one CAS per request.
+ * Buckets are held in a size-bounded map and dropped once idle, which only ever
+ * resets a bucket to full.
+ */
+public class TokenBucketRateLimiter<K> {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Cache<K, AtomicLong> buckets;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param permitsPerSecond sustained rate
+     * @param burst            requests allowed back to back from a full bucket
+     * @param maxKeys          upper bound on tracked keys
+     */
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst, long maxKeys) {
+        this.emissionIntervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, burst - 1);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                // once idle this long the bucket is full again, so forgetting it is lossless
+                .expireAfterAccess(Duration.ofNanos(emissionIntervalNanos + burstToleranceNanos))
+                .build();
+    }
+
+    /**
+     * Take one permit for the key; returns 0 when granted, otherwise the nanos to wait
+     */
+    public long tryAcquire(K key) {
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long now = System.nanoTime();
+
+        while (true) {
+            long tat = bucket.get();
+            long start = Math.max(tat, now);
+            long allowAt = start - burstToleranceNanos;
+            if (now < allowAt) {
+                rejected.increment();
+                return allowAt - now;
+            }
+            if (bucket.compareAndSet(tat, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Give back a permit granted by tryAcquire, when a later check turned the request away
+     */
+    public void refund(K key) {
+        AtomicLong bucket = buckets.getIfPresent(key);
+        if (bucket != null) {
+            bucket.updateAndGet(tat -> tat == Long.MIN_VALUE ? tat : tat - emissionIntervalNanos);
+        }
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getTrackedKeys() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,13 @@
+package com.hospital.queue.repository;
+
+import com.hospital.queue.entity.ClusterNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ClusterNodeRepository extends JpaRepository<ClusterNode, String> {
+
+    List<ClusterNode> findByLastHeartbeatAfterOrderByNodeIdAsc(LocalDateTime cutoff);
+}
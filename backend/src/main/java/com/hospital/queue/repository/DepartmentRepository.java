@@ -1,11 +1,72 @@
 package com.hospital.queue.repository;
 
 import com.hospital.queue.entity.Department;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DepartmentRepository extends JpaRepository<Department, Long> {
+
+    @Override
+    @Cacheable(cacheNames = "departments", key = "#p0")
+    Optional<Department> findById(Long id);
+
+    @Override
+    @Cacheable(cacheNames = "allDepartments")
+    List<Department> findAll();
+
+    @Cacheable(cacheNames = "departmentsByHospital", key = "#p0")
     List<Department> findByHospitalId(Long hospitalId);
-}
\ No newline at end of file
+
+    @Override
+    @CacheEvict(cacheNames = {"departments", "allDepartments", "departmentsByHospital"}, allEntries = true)
+    <S extends Department> S save(S department);
+
+    @Override
+    @CacheEvict(cacheNames = {"departments", "allDepartments", "departmentsByHospital"}, allEntries = true)
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = {"departments", "allDepartments", "departmentsByHospital"}, allEntries = true)
+    <S extends Department> List<S> saveAll(Iterable<S> departments);
+
+    @Override
+    @CacheEvict(cacheNames = {"departments", "allDepartments", "departmentsByHospital"}, allEntries = true)
+    <S extends Department> S saveAndFlush(S department);
+
+    @Override
+    @CacheEvict(cacheNames = {"departments", "allDepartments", "departmentsByHospital"}, allEntries = true)
+    <S extends Department> List<S> saveAllAndFlush(Iterable<S> departments);
+
+    @Override
+    @CacheEvict(cacheNames = {"departments", "allDepartments", "departmentsByHospital"}, allEntries = true)
+    void delete(Department department);
+
+    @Override
+    @CacheEvict(cacheNames = {"departments", "allDepartments", "departmentsByHospital"}, allEntries = true)
+    void deleteAllById(Iterable<? extends Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = {"departments", "allDepartments", "departmentsByHospital"}, allEntries = true)
+    void deleteAll(Iterable<? extends Department> departments);
+
+    @Override
+    @CacheEvict(cacheNames = {"departments", "allDepartments", "departmentsByHospital"}, allEntries = true)
+    void deleteAll();
+
+    @Override
+    @CacheEvict(cacheNames = {"departments", "allDepartments", "departmentsByHospital"}, allEntries = true)
+    void deleteAllInBatch(Iterable<Department> departments);
+
+    @Override
+    @CacheEvict(cacheNames = {"departments", "allDepartments", "departmentsByHospital"}, allEntries = true)
+    void deleteAllByIdInBatch(Iterable<Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = {"departments", "allDepartments", "departmentsByHospital"}, allEntries = true)
+    void deleteAllInBatch();
+}
@@ -1,12 +1,71 @@
 package com.hospital.queue.repository;
 
 import com.hospital.queue.entity.Doctor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+
+    @Override
+    @Cacheable(cacheNames = "doctors", key = "#p0")
+    Optional<Doctor> findById(Long id);
+
+    @Cacheable(cacheNames = "doctorsByDepartment", key = "#p0")
     List<Doctor> findByDepartmentId(Long departmentId);
+
+    @Cacheable(cacheNames = "availableDoctors", key = "#p0")
     List<Doctor> findByDepartmentIdAndAvailableTrue(Long departmentId);
-}
\ No newline at end of file
+
+    @Override
+    @CacheEvict(cacheNames = {"doctors", "doctorsByDepartment", "availableDoctors"}, allEntries = true)
+    <S extends Doctor> S save(S doctor);
+
+    @Override
+    @CacheEvict(cacheNames = {"doctors", "doctorsByDepartment", "availableDoctors"}, allEntries = true)
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = {"doctors", "doctorsByDepartment", "availableDoctors"}, allEntries = true)
+    <S extends Doctor> List<S> saveAll(Iterable<S> doctors);
+
+    @Override
+    @CacheEvict(cacheNames = {"doctors", "doctorsByDepartment", "availableDoctors"}, allEntries = true)
+    <S extends Doctor> S saveAndFlush(S doctor);
+
+    @Override
+    @CacheEvict(cacheNames = {"doctors", "doctorsByDepartment", "availableDoctors"}, allEntries = true)
+    <S extends Doctor> List<S> saveAllAndFlush(Iterable<S> doctors);
+
+    @Override
+    @CacheEvict(cacheNames = {"doctors", "doctorsByDepartment", "availableDoctors"}, allEntries = true)
+    void delete(Doctor doctor);
+
+    @Override
+    @CacheEvict(cacheNames = {"doctors", "doctorsByDepartment", "availableDoctors"}, allEntries = true)
+    void deleteAllById(Iterable<? extends Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = {"doctors", "doctorsByDepartment", "availableDoctors"}, allEntries = true)
+    void deleteAll(Iterable<? extends Doctor> doctors);
+
+    @Override
+    @CacheEvict(cacheNames = {"doctors", "doctorsByDepartment", "availableDoctors"}, allEntries = true)
+    void deleteAll();
+
+    @Override
+    @CacheEvict(cacheNames = {"doctors", "doctorsByDepartment", "availableDoctors"}, allEntries = true)
+    void deleteAllInBatch(Iterable<Doctor> doctors);
+
+    @Override
+    @CacheEvict(cacheNames = {"doctors", "doctorsByDepartment", "availableDoctors"}, allEntries = true)
+    void deleteAllByIdInBatch(Iterable<Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = {"doctors", "doctorsByDepartment", "availableDoctors"}, allEntries = true)
+    void deleteAllInBatch();
+}
@@ -1,9 +1,65 @@
 package com.hospital.queue.repository;
 
 import com.hospital.queue.entity.Hospital;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface HospitalRepository extends JpaRepository<Hospital, Long> {
-}
\ No newline at end of file
+
+    @Override
+    @Cacheable(cacheNames = "hospitals", key = "#p0")
+    Optional<Hospital> findById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = "hospitals", allEntries = true)
+    <S extends Hospital> S save(S hospital);
+
+    @Override
+    @CacheEvict(cacheNames = "hospitals", allEntries = true)
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = "hospitals", allEntries = true)
+    <S extends Hospital> List<S> saveAll(Iterable<S> hospitals);
+
+    @Override
+    @CacheEvict(cacheNames = "hospitals", allEntries = true)
+    <S extends Hospital> S saveAndFlush(S hospital);
+
+    @Override
+    @CacheEvict(cacheNames = "hospitals", allEntries = true)
+    <S extends Hospital> List<S> saveAllAndFlush(Iterable<S> hospitals);
+
+    @Override
+    @CacheEvict(cacheNames = "hospitals", allEntries = true)
+    void delete(Hospital hospital);
+
+    @Override
+    @CacheEvict(cacheNames = "hospitals", allEntries = true)
+    void deleteAllById(Iterable<? extends Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = "hospitals", allEntries = true)
+    void deleteAll(Iterable<? extends Hospital> hospitals);
+
+    @Override
+    @CacheEvict(cacheNames = "hospitals", allEntries = true)
+    void deleteAll();
+
+    @Override
+    @CacheEvict(cacheNames = "hospitals", allEntries = true)
+    void deleteAllInBatch(Iterable<Hospital> hospitals);
+
+    @Override
+    @CacheEvict(cacheNames = "hospitals", allEntries = true)
+    void deleteAllByIdInBatch(Iterable<Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = "hospitals", allEntries = true)
+    void deleteAllInBatch();
+}
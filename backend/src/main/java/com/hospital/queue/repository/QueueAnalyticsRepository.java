@@ -1,7 +1,12 @@
 package com.hospital.queue.repository;
 
+import com.hospital.queue.datasource.ReplicaRead;
 import com.hospital.queue.entity.QueueAnalytics;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
 import java.util.List;
@@ -16,6 +21,19 @@ public interface QueueAnalyticsRepository extends JpaRepository<QueueAnalytics,
             Integer hour
     );
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<QueueAnalytics> findWithLockByDepartmentIdAndDateAndHour(
+            Long departmentId,
+            LocalDate date,
+            Integer hour
+    );
+
+    @Modifying
+    @Query("UPDATE QueueAnalytics a SET a.waitHistogram = :waitHistogram, " +
+            "a.serviceHistogram = :serviceHistogram WHERE a.id = :id")
+    void updateHistograms(Long id, byte[] waitHistogram, byte[] serviceHistogram);
+
+    @ReplicaRead
     List<QueueAnalytics> findByDepartmentIdAndDateBetween(
             Long departmentId,
             LocalDate startDate,
@@ -1,17 +1,21 @@
 package com.hospital.queue.repository;
 
+import com.hospital.queue.datasource.ReplicaRead;
 import com.hospital.queue.entity.Token;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TokenRepository extends JpaRepository<Token, Long> {
 
     List<Token> findByUserId(Long userId);
 
+    Optional<Token> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
     List<Token> findByDepartmentIdAndStatusOrderByBookingTimeAsc(
             Long departmentId,
             Token.TokenStatus status
@@ -22,6 +26,15 @@ public interface TokenRepository extends JpaRepository<Token, Long> {
             List<Token.TokenStatus> statuses
     );
 
+    List<Token> findByStatusIn(List<Token.TokenStatus> statuses);
+
+    /**
+     * Token counts per department and status, for the statuses given; one row per pair present
+     */
+    @Query("SELECT t.departmentId AS departmentId, t.status AS status, COUNT(t) AS count " +
+            "FROM Token t WHERE t.status IN :statuses GROUP BY t.departmentId, t.status")
+    List<StatusCount> countByDepartmentAndStatusIn(List<Token.TokenStatus> statuses);
+
     @Query("SELECT COUNT(t) FROM Token t WHERE t.departmentId = :departmentId " +
             "AND t.status = :status")
     Long countByDepartmentIdAndStatus(Long departmentId, Token.TokenStatus status);
@@ -38,4 +51,46 @@ public interface TokenRepository extends JpaRepository<Token, Long> {
     @Query("SELECT AVG(t.actualWaitTime) FROM Token t WHERE t.departmentId = :departmentId " +
             "AND t.status = 'COMPLETED' AND t.actualWaitTime IS NOT NULL")
     Double getAverageWaitTimeByDepartment(Long departmentId);
-}
\ No newline at end of file
+
+    /**
+     * Today's counts for every department of the hospital in one grouped scan: tokens
+     * booked since the start of the day, plus tokens still in the queue from earlier.
+     * Departments without such tokens have no row.
+     */
+    @Query("SELECT t.departmentId AS departmentId, " +
+            "SUM(CASE WHEN t.bookingTime >= :startOfDay THEN 1 ELSE 0 END) AS totalToday, " +
+            "SUM(CASE WHEN t.bookingTime >= :startOfDay AND t.status = 'COMPLETED' THEN 1 ELSE 0 END) AS completedToday, " +
+            "SUM(CASE WHEN t.bookingTime >= :startOfDay AND t.status = 'CANCELLED' THEN 1 ELSE 0 END) AS cancelledToday, " +
+            "SUM(CASE WHEN t.status = 'WAITING' THEN 1 ELSE 0 END) AS waiting, " +
+            "SUM(CASE WHEN t.status = 'IN_PROGRESS' THEN 1 ELSE 0 END) AS inProgress, " +
+            "AVG(CASE WHEN t.bookingTime >= :startOfDay AND t.status = 'COMPLETED' THEN t.actualWaitTime END) AS averageWaitTime " +
+            "FROM Token t WHERE t.departmentId IN (SELECT d.id FROM Department d WHERE d.hospitalId = :hospitalId) " +
+            "AND (t.bookingTime >= :startOfDay OR t.status IN ('WAITING', 'IN_PROGRESS')) " +
+            "GROUP BY t.departmentId")
+    @ReplicaRead
+    List<DepartmentTokenCounts> countTodayByHospital(Long hospitalId, LocalDateTime startOfDay);
+
+    interface StatusCount {
+        Long getDepartmentId();
+
+        Token.TokenStatus getStatus();
+
+        Long getCount();
+    }
+
+    interface DepartmentTokenCounts {
+        Long getDepartmentId();
+
+        Long getTotalToday();
+
+        Long getCompletedToday();
+
+        Long getCancelledToday();
+
+        Long getWaiting();
+
+        Long getInProgress();
+
+        Double getAverageWaitTime();
+    }
+}
@@ -0,0 +1,15 @@
+package com.hospital.queue.repository;
+
+import com.hospital.queue.entity.UserNotification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface UserNotificationRepository extends JpaRepository<UserNotification, Long> {
+
+    List<UserNotification> findByUserIdAndSequenceGreaterThanOrderBySequenceAsc(
+            Long userId,
+            Long sequence
+    );
+}
@@ -1,26 +1,57 @@
 package com.hospital.queue.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import com.hospital.queue.metrics.QueueMetrics;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 
 @Component
+@Slf4j
 public class JwtTokenProvider {
 
-    @Value("${spring.security.jwt.secret}")
-    private String jwtSecret;
+    private final long jwtExpiration;
+    private final QueueMetrics queueMetrics;
 
-    @Value("${spring.security.jwt.expiration}")
-    private long jwtExpiration;
+    // Key and parser are immutable and thread-safe, so build them once
+    private final Key signingKey;
+    private final JwtParser jwtParser;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    // SHA-256 of the compact token -> verified claims, evicted at token expiry
+    private final Cache<String, Claims> verifiedTokens;
+
+    public JwtTokenProvider(
+            @Value("${spring.security.jwt.secret}") String jwtSecret,
+            @Value("${spring.security.jwt.expiration}") long jwtExpiration,
+            @Value("${spring.security.jwt.cache-size:10000}") long cacheSize,
+            QueueMetrics queueMetrics
+    ) {
+        this.jwtExpiration = jwtExpiration;
+        this.queueMetrics = queueMetrics;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .executor(Runnable::run)
+                .expireAfter(Expiry.creating((String hash, Claims claims) ->
+                        remainingLifetime(claims)))
+                .build();
     }
 
     public String generateToken(Authentication authentication) {
@@ -29,42 +60,99 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
+        // Subject only: role and hospital come from PrincipalCache, so changes and
+        // deactivations apply to tokens already issued
         return Jwts.builder()
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verify the token once and return its claims, or null if it is not valid.
+     * Recently verified tokens are served from cache until they expire.
+     */
+    public Claims parseToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        String hash = hash(token);
+        Claims cached = verifiedTokens.getIfPresent(hash);
+        if (cached != null) {
+            if (isExpired(cached)) {
+                verifiedTokens.invalidate(hash);
+                return null;
+            }
+            return cached;
+        }
+
+        Claims claims = verify(token);
+        if (claims != null && !isExpired(claims)) {
+            verifiedTokens.put(hash, claims);
+        }
+        return claims;
+    }
 
+    public String getUsernameFromToken(String token) {
+        Claims claims = parseToken(token);
+        if (claims == null) {
+            throw new JwtException("Invalid JWT token");
+        }
         return claims.getSubject();
     }
 
     public boolean validateToken(String authToken) {
+        return parseToken(authToken) != null;
+    }
+
+    private Claims verify(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+            return jwtParser.parseClaimsJws(token).getBody();
         } catch (SecurityException ex) {
-            System.err.println("Invalid JWT signature");
+            rejected("jwt_invalid_signature", "Invalid JWT signature");
         } catch (MalformedJwtException ex) {
-            System.err.println("Invalid JWT token");
+            rejected("jwt_malformed", "Invalid JWT token");
         } catch (ExpiredJwtException ex) {
-            System.err.println("Expired JWT token");
+            rejected("jwt_expired", "Expired JWT token");
         } catch (UnsupportedJwtException ex) {
-            System.err.println("Unsupported JWT token");
+            rejected("jwt_unsupported", "Unsupported JWT token");
         } catch (IllegalArgumentException ex) {
-            System.err.println("JWT claims string is empty");
+            rejected("jwt_empty", "JWT claims string is empty");
+        } catch (JwtException ex) {
+            rejected("jwt_invalid", "Invalid JWT token");
+        }
+        return null;
+    }
+
+    private void rejected(String reason, String message) {
+        queueMetrics.authFailure(reason);
+        log.debug(message);
+    }
+
+    private static boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+
+    private static Duration remainingLifetime(Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            return Duration.ofMinutes(5);
+        }
+        long remaining = expiration.getTime() - System.currentTimeMillis();
+        return Duration.ofMillis(Math.max(remaining, 0));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
-        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package com.hospital.queue.security;
+
+import lombok.Getter;
+
+/**
+ * Raised when the password-hashing pool is saturated; mapped to 429 with Retry-After.
+ */
+@Getter
+public class LoginThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(long retryAfterSeconds) {
+        super("Too many login attempts in progress, retry in " + retryAfterSeconds + "s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,86 @@
+package com.hospital.queue.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hospital.queue.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Size-bounded, TTL-evicting store of request principals keyed by username, so
+ * steady-state request authentication needs no users-table query. Entries are
+ * evicted explicitly when a user is deactivated or changes role.
+ */
+@Component
+public class PrincipalCache {
+
+    private final Function<String, UserPrincipal> loader;
+    private final Cache<String, UserPrincipal> principals;
+    // Bumped by evict; a load only caches its result if no evict happened meanwhile
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PrincipalCache(
+            UserRepository userRepository,
+            @Value("${spring.security.principal-cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${spring.security.principal-cache.size:10000}") long maximumSize
+    ) {
+        this(username -> userRepository.findByUsername(username)
+                        .map(user -> UserPrincipal.create(user).withoutPassword())
+                        .orElse(null),
+                Duration.ofSeconds(ttlSeconds),
+                maximumSize);
+    }
+
+    public PrincipalCache(Function<String, UserPrincipal> loader, Duration ttl, long maximumSize) {
+        this.loader = loader;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Cached principal for the username, loading it once on a miss; null if the user does not exist
+     */
+    public UserPrincipal get(String username) {
+        UserPrincipal cached = principals.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+        // Load outside Cache.get(key, loader): that runs the query inside a map bin lock,
+        // which pins the carrier thread in virtual-thread mode
+        long generation = generation(username);
+        UserPrincipal loaded = loader.apply(username);
+        if (loaded == null) {
+            return null;
+        }
+        UserPrincipal cachedNow = principals.asMap().compute(username, (key, existing) -> {
+            if (existing != null) {
+                return existing;
+            }
+            // An evict since the read means the row may have changed after it
+            return generation(key) == generation ? loaded : null;
+        });
+        return cachedNow != null ? cachedNow : loaded;
+    }
+
+    public void evict(String username) {
+        generations.merge(username, 1L, Long::sum);
+        principals.invalidate(username);
+    }
+
+    private long generation(String username) {
+        return generations.getOrDefault(username, 0L);
+    }
+
+    public long size() {
+        return principals.estimatedSize();
+    }
+}
@@ -0,0 +1,67 @@
+package com.hospital.queue.security;
+
+import com.hospital.queue.entity.User;
+import lombok.Getter;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable UserDetails view of a User. Request authentication uses copies without
+ * the password hash, so cached principals never hold credentials.
+ */
+@Getter
+public class UserPrincipal implements UserDetails, CredentialsContainer {
+
+    private final Long id;
+    private final String username;
+    private String password;
+    private final User.Role role;
+    private final Long hospitalId;
+    private final boolean active;
+    private final List<GrantedAuthority> authorities;
+
+    public UserPrincipal(Long id, String username, String password, User.Role role, Long hospitalId, boolean active) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.role = role;
+        this.hospitalId = hospitalId;
+        this.active = active;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    public static UserPrincipal create(User user) {
+        return new UserPrincipal(
+                user.getId(),
+                user.getUsername(),
+                user.getPassword(),
+                user.getRole(),
+                user.getHospitalId(),
+                !Boolean.FALSE.equals(user.getIsActive())
+        );
+    }
+
+    public UserPrincipal withoutPassword() {
+        return new UserPrincipal(id, username, null, role, hospitalId, active);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return active;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        this.password = null;
+    }
+}
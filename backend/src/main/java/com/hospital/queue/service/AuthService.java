@@ -4,53 +4,60 @@ import com.hospital.queue.dto.AuthResponse;
 import com.hospital.queue.dto.LoginRequest;
 import com.hospital.queue.dto.RegisterRequest;
 import com.hospital.queue.entity.User;
+import com.hospital.queue.metrics.QueueMetrics;
 import com.hospital.queue.repository.UserRepository;
 import com.hospital.queue.security.JwtTokenProvider;
+import com.hospital.queue.security.LoginThrottledException;
+import com.hospital.queue.security.PasswordHashingExecutor;
+import com.hospital.queue.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
     private final UserRepository userRepository;
+    private final UserService userService;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider tokenProvider;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final QueueMetrics queueMetrics;
 
-    @Transactional
+    /**
+     * Not transactional: the password is hashed on the bounded pool before any
+     * transaction opens, so no connection is held while waiting for it
+     */
     public AuthResponse register(RegisterRequest request) {
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new RuntimeException("Username already exists");
-        }
-
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email already exists");
-        }
+        // Fail fast before hashing; createUser checks again inside its transaction
+        userService.checkAvailable(request.getUsername(), request.getEmail());
 
         User user = new User();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHashingExecutor.execute(() ->
+                passwordEncoder.encode(request.getPassword())
+        ));
         user.setFullName(request.getFullName());
         user.setPhoneNumber(request.getPhoneNumber());
         user.setRole(request.getRole());
         user.setHospitalId(request.getHospitalId());
 
-        User savedUser = userRepository.save(user);
+        User savedUser = userService.createUser(user);
 
-        // Auto-login after registration
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getUsername(),
-                        request.getPassword()
-                )
+        // Auto-login after registration; the password was just hashed, no need to verify it again
+        UserPrincipal principal = UserPrincipal.create(savedUser).withoutPassword();
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                principal.getAuthorities()
         );
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -60,12 +67,24 @@ public class AuthService {
     }
 
     public AuthResponse login(LoginRequest request) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getUsername(),
-                        request.getPassword()
-                )
-        );
+        // BCrypt verification (and any rehash) runs on the bounded hashing pool
+        Authentication authentication;
+        try {
+            authentication = passwordHashingExecutor.execute(() ->
+                    authenticationManager.authenticate(
+                            new UsernamePasswordAuthenticationToken(
+                                    request.getUsername(),
+                                    request.getPassword()
+                            )
+                    )
+            );
+        } catch (LoginThrottledException e) {
+            queueMetrics.authFailure("login_throttled");
+            throw e;
+        } catch (AuthenticationException e) {
+            queueMetrics.authFailure("bad_credentials");
+            throw e;
+        }
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String token = tokenProvider.generateToken(authentication);
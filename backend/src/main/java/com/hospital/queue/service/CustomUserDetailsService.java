@@ -2,15 +2,18 @@ package com.hospital.queue.service;
 
 import com.hospital.queue.entity.User;
 import com.hospital.queue.repository.UserRepository;
+import com.hospital.queue.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -23,7 +26,22 @@ public class CustomUserDetailsService implements UserDetailsService {
                         new UsernameNotFoundException("User not found: " + username)
                 );
 
-        return (UserDetails) user; // must implement UserDetails
+        return UserPrincipal.create(user);
     }
-}
 
+    /**
+     * Called by the authentication provider after a successful login when the stored
+     * hash uses a weaker work factor than configured
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() ->
+                        new UsernameNotFoundException("User not found: " + userDetails.getUsername())
+                );
+
+        user.setPassword(newPassword);
+        return UserPrincipal.create(userRepository.save(user));
+    }
+}
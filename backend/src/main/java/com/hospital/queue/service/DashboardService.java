@@ -1,11 +1,14 @@
 package com.hospital.queue.service;
 
 import com.hospital.queue.dto.DashboardStatusResponse;
+import com.hospital.queue.dto.LatencyDistributionResponse;
 import com.hospital.queue.entity.Token;
 import com.hospital.queue.repository.TokenRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 
@@ -14,7 +17,13 @@ import java.time.LocalTime;
 public class DashboardService {
 
     private final TokenRepository tokenRepository;
+    private final LatencyHistogramService latencyHistogramService;
 
+    /**
+     * Read from the primary: the response is tagged with the queue version, which moves on
+     * primary commits, so a lagging replica would store old figures under the new tag
+     */
+    @Transactional(readOnly = true)
     public DashboardStatusResponse getTodayStats(Long departmentId) {
         LocalDateTime startOfDay = LocalDateTime.now().with(LocalTime.MIN);
         LocalDateTime endOfDay = LocalDateTime.now().with(LocalTime.MAX);
@@ -41,6 +50,8 @@ public class DashboardService {
                 .count();
 
         Double avgWaitTime = tokenRepository.getAverageWaitTimeByDepartment(departmentId);
+        LocalDate today = LocalDate.now();
+        LatencyDistributionResponse latency = latencyHistogramService.getDistribution(departmentId, today, today);
 
         return new DashboardStatusResponse(
                 totalTokens,
@@ -48,8 +59,9 @@ public class DashboardService {
                 waiting,
                 cancelled,
                 avgWaitTime != null ? avgWaitTime : 0.0,
-                Math.toIntExact(waiting)
-
+                Math.toIntExact(waiting),
+                latency.getWaitTime(),
+                latency.getServiceTime()
         );
     }
 }
\ No newline at end of file
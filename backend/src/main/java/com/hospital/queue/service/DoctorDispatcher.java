@@ -0,0 +1,364 @@
+package com.hospital.queue.service;
+
+import com.hospital.queue.cluster.ShardOwnershipChangedEvent;
+import com.hospital.queue.dto.DoctorStatsResponse;
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.Doctor;
+import com.hospital.queue.entity.Token;
+import com.hospital.queue.event.TokenEvent;
+import com.hospital.queue.journal.ActiveToken;
+import com.hospital.queue.journal.TokenJournal;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.repository.DoctorRepository;
+import com.hospital.queue.repository.TokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Multi-server dispatch within a department. Patients who asked for a specific doctor
+ * wait in that doctor's sub-queue; everyone else waits in a shared pool. A doctor who
+ * calls next takes the better-ranked of their own head and the pool head, so no
+ * doctor idles while patients wait. Without an explicit doctor, call-next goes to the
+ * least-loaded available doctor, using smoothed live service times.
+ * Queues are ranked by priority aged with waiting time: every aging step waited counts
+ * as one priority level, so low-priority patients are not starved on busy days.
+ * State is rebuilt per department on first use, from the token journal's recovered
+ * queue state when it is available, otherwise from the tokens table. The load holds the
+ * department's lock, which token events also take, so no event committed during the
+ * load is lost; events the loaded state already reflects apply idempotently.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DoctorDispatcher {
+
+    private static final Comparator<QueuedToken> QUEUE_ORDER = Comparator
+            .comparingLong(QueuedToken::rank)
+            .thenComparing(Comparator.comparingInt(QueuedToken::priority).reversed())
+            .thenComparing(QueuedToken::bookingTime)
+            .thenComparingLong(QueuedToken::tokenId);
+
+    private final TokenRepository tokenRepository;
+    private final DoctorRepository doctorRepository;
+    private final DepartmentRepository departmentRepository;
+    private final TokenJournal tokenJournal;
+
+    @Value("${dispatch.service-time-smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${dispatch.aging-minutes-per-level:30}")
+    private long agingMinutesPerLevel;
+
+    private final Map<Long, DepartmentDispatch> departments = new ConcurrentHashMap<>();
+
+    /**
+     * Least-loaded available doctor of the department, or null if none are on duty
+     */
+    public Long pickDoctor(Long departmentId) {
+        List<Doctor> available = doctorRepository.findByDepartmentIdAndAvailableTrue(departmentId);
+        if (available.isEmpty()) {
+            return null;
+        }
+
+        DepartmentDispatch dispatch = dispatch(departmentId);
+        synchronized (dispatch) {
+            Long best = null;
+            double bestLoad = Double.MAX_VALUE;
+            for (Doctor doctor : available) {
+                DoctorLoad load = dispatch.load(doctor.getId());
+                IndexedHeap<QueuedToken> own = dispatch.byDoctor.get(doctor.getId());
+                int work = load.inProgress.size() + (own != null ? own.size() : 0);
+                double expectedBusyMinutes = work * load.averageServiceMinutes;
+                if (expectedBusyMinutes < bestLoad) {
+                    bestLoad = expectedBusyMinutes;
+                    best = doctor.getId();
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Remove and return the next token for the doctor, from their own queue or the shared
+     * pool; with no doctor, only from the shared pool. The claim is finalized by the
+     * IN_PROGRESS event or undone with release()
+     */
+    public Long claimNext(Long departmentId, Long doctorId) {
+        DepartmentDispatch dispatch = dispatch(departmentId);
+        synchronized (dispatch) {
+            IndexedHeap<QueuedToken> source = dispatch.shared;
+            QueuedToken best = dispatch.shared.peek();
+
+            IndexedHeap<QueuedToken> own = doctorId != null ? dispatch.byDoctor.get(doctorId) : null;
+            QueuedToken head = own != null ? own.peek() : null;
+            if (head != null && (best == null || QUEUE_ORDER.compare(head, best) < 0)) {
+                best = head;
+                source = own;
+            }
+
+            if (best == null) {
+                return null;
+            }
+            source.poll();
+            dispatch.waiting.remove(best.tokenId());
+            dispatch.claimed.put(best.tokenId(), best);
+            return best.tokenId();
+        }
+    }
+
+    /**
+     * Put a claimed token back, e.g. when the call-next transaction rolled back
+     */
+    public void release(Long departmentId, Long tokenId) {
+        DepartmentDispatch dispatch = departments.get(departmentId);
+        if (dispatch == null) {
+            return;
+        }
+        synchronized (dispatch) {
+            if (!dispatch.loaded) {
+                return;
+            }
+            QueuedToken claimed = dispatch.claimed.remove(tokenId);
+            if (claimed != null) {
+                dispatch.enqueue(claimed);
+            }
+        }
+    }
+
+    /**
+     * Hospital shards moved between nodes; drop everything and rebuild from the tokens
+     * table on next use, since another node may have changed the queues meanwhile
+     */
+    @EventListener
+    public void onShardOwnershipChanged(ShardOwnershipChangedEvent event) {
+        departments.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTokenEvent(TokenEvent event) {
+        DepartmentDispatch dispatch = departments.get(event.departmentId());
+        if (dispatch == null) {
+            return; // not used yet; the first load reads the committed state
+        }
+
+        synchronized (dispatch) {
+            if (!dispatch.loaded) {
+                return; // the load failed; the next use loads again
+            }
+            Long tokenId = event.tokenId();
+            dispatch.claimed.remove(tokenId);
+
+            switch (event.newStatus()) {
+                case WAITING -> dispatch.enqueue(queuedToken(
+                        tokenId, event.doctorId(), event.priority(), event.bookingTime()));
+                case IN_PROGRESS -> {
+                    dispatch.dequeue(tokenId);
+                    if (event.doctorId() != null) {
+                        dispatch.load(event.doctorId()).inProgress.add(tokenId);
+                    }
+                }
+                case COMPLETED -> {
+                    dispatch.dequeue(tokenId);
+                    if (event.oldStatus() == Token.TokenStatus.IN_PROGRESS && event.doctorId() != null) {
+                        DoctorLoad load = dispatch.load(event.doctorId());
+                        load.inProgress.remove(tokenId);
+                        load.recordCompletion(serviceMinutes(event), smoothing);
+                    }
+                }
+                default -> {
+                    dispatch.dequeue(tokenId);
+                    if (event.oldStatus() == Token.TokenStatus.IN_PROGRESS && event.doctorId() != null) {
+                        dispatch.load(event.doctorId()).inProgress.remove(tokenId);
+                    }
+                }
+            }
+        }
+    }
+
+    public List<DoctorStatsResponse> getDoctorStats(Long departmentId) {
+        List<Doctor> doctors = doctorRepository.findByDepartmentId(departmentId);
+        DepartmentDispatch dispatch = dispatch(departmentId);
+        long hourAgo = System.currentTimeMillis() - Duration.ofHours(1).toMillis();
+
+        List<DoctorStatsResponse> stats = new ArrayList<>();
+        synchronized (dispatch) {
+            for (Doctor doctor : doctors) {
+                DoctorLoad load = dispatch.load(doctor.getId());
+                IndexedHeap<QueuedToken> own = dispatch.byDoctor.get(doctor.getId());
+                stats.add(new DoctorStatsResponse(
+                        doctor.getId(),
+                        doctor.getAvailable(),
+                        own != null ? own.size() : 0,
+                        load.inProgress.size(),
+                        load.completed,
+                        load.completedSince(hourAgo),
+                        load.averageServiceMinutes
+                ));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Waiting tokens of the department in the order they will be called
+     */
+    public List<Long> waitingOrder(Long departmentId) {
+        DepartmentDispatch dispatch = dispatch(departmentId);
+        List<QueuedToken> waiting;
+        synchronized (dispatch) {
+            waiting = new ArrayList<>(dispatch.waiting.values());
+        }
+        waiting.sort(QUEUE_ORDER);
+        return waiting.stream().map(QueuedToken::tokenId).toList();
+    }
+
+    private DepartmentDispatch dispatch(Long departmentId) {
+        // Register first and query under the department's lock (not computeIfAbsent's bin
+        // lock), so events committed from here on wait for the load and then apply to it
+        DepartmentDispatch dispatch = departments.computeIfAbsent(departmentId, id -> new DepartmentDispatch());
+        synchronized (dispatch) {
+            if (!dispatch.loaded) {
+                load(departmentId, dispatch);
+                dispatch.loaded = true;
+            }
+        }
+        return dispatch;
+    }
+
+    private void load(Long departmentId, DepartmentDispatch dispatch) {
+        dispatch.defaultServiceMinutes = departmentRepository.findById(departmentId)
+                .map(Department::getAverageServiceTime)
+                .map(Integer::doubleValue)
+                .orElse(15.0);
+
+        Optional<List<ActiveToken>> journaled = tokenJournal.activeTokens(departmentId);
+        if (journaled.isPresent()) {
+            for (ActiveToken token : journaled.get()) {
+                add(dispatch, token.tokenId(), token.doctorId(), token.priority(), token.bookingTime(), token.status());
+            }
+        } else {
+            List<Token> active = tokenRepository.findByDepartmentIdAndStatusInOrderByPriorityDescBookingTimeAsc(
+                    departmentId,
+                    List.of(Token.TokenStatus.WAITING, Token.TokenStatus.IN_PROGRESS)
+            );
+            for (Token token : active) {
+                add(dispatch, token.getId(), token.getDoctorId(), token.getPriority(), token.getBookingTime(),
+                        token.getStatus());
+            }
+        }
+        log.info("Loaded dispatch state for department {}: {} waiting", departmentId, dispatch.waiting.size());
+    }
+
+    private void add(DepartmentDispatch dispatch, long tokenId, Long doctorId, Integer priority,
+                     LocalDateTime bookingTime, Token.TokenStatus status) {
+        if (status == Token.TokenStatus.WAITING) {
+            dispatch.enqueue(queuedToken(tokenId, doctorId, priority, bookingTime));
+        } else if (doctorId != null) {
+            dispatch.load(doctorId).inProgress.add(tokenId);
+        }
+    }
+
+    /**
+     * Aged rank: a token of priority p booked at t ranks as if booked p aging steps before t.
+     * Effective priority p + waited / step then orders tokens the same way at every moment,
+     * so ranks never need updating as time passes. Without aging all ranks are equal and
+     * the order is strictly by priority.
+     */
+    private QueuedToken queuedToken(long tokenId, Long doctorId, Integer priority, LocalDateTime bookingTime) {
+        int level = priority != null ? priority : 0;
+        LocalDateTime booked = bookingTime != null ? bookingTime : LocalDateTime.now();
+        long rank = agingMinutesPerLevel > 0
+                ? booked.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                        - level * Duration.ofMinutes(agingMinutesPerLevel).toMillis()
+                : 0;
+        return new QueuedToken(tokenId, doctorId, level, booked, rank);
+    }
+
+    private static Double serviceMinutes(TokenEvent event) {
+        if (event.serviceStartTime() == null || event.serviceEndTime() == null) {
+            return null;
+        }
+        return Duration.between(event.serviceStartTime(), event.serviceEndTime()).toSeconds() / 60.0;
+    }
+
+    private record QueuedToken(long tokenId, Long doctorId, int priority, LocalDateTime bookingTime, long rank) {
+    }
+
+    private static final class DoctorLoad {
+        private final Set<Long> inProgress = new HashSet<>();
+        private long completed;
+        private double averageServiceMinutes;
+        private final ArrayDeque<Long> recentCompletions = new ArrayDeque<>();
+
+        private DoctorLoad(double averageServiceMinutes) {
+            this.averageServiceMinutes = averageServiceMinutes;
+        }
+
+        private void recordCompletion(Double serviceMinutes, double smoothing) {
+            completed++;
+            long now = System.currentTimeMillis();
+            recentCompletions.addLast(now);
+            completedSince(now - Duration.ofHours(1).toMillis());
+            if (serviceMinutes != null) {
+                averageServiceMinutes += smoothing * (serviceMinutes - averageServiceMinutes);
+            }
+        }
+
+        private int completedSince(long cutoff) {
+            while (!recentCompletions.isEmpty() && recentCompletions.peekFirst() < cutoff) {
+                recentCompletions.pollFirst();
+            }
+            return recentCompletions.size();
+        }
+    }
+
+    private static final class DepartmentDispatch {
+        private boolean loaded;
+        private double defaultServiceMinutes;
+        private final Map<Long, QueuedToken> waiting = new HashMap<>();
+        private final Map<Long, QueuedToken> claimed = new HashMap<>();
+        private final IndexedHeap<QueuedToken> shared = new IndexedHeap<>(QUEUE_ORDER);
+        private final Map<Long, IndexedHeap<QueuedToken>> byDoctor = new HashMap<>();
+        private final Map<Long, DoctorLoad> doctors = new HashMap<>();
+
+        private DoctorLoad load(Long doctorId) {
+            return doctors.computeIfAbsent(doctorId, id -> new DoctorLoad(defaultServiceMinutes));
+        }
+
+        private void enqueue(QueuedToken token) {
+            if (waiting.putIfAbsent(token.tokenId(), token) != null) {
+                return;
+            }
+            if (token.doctorId() != null) {
+                byDoctor.computeIfAbsent(token.doctorId(), id -> new IndexedHeap<>(QUEUE_ORDER)).put(token.tokenId(), token);
+            } else {
+                shared.put(token.tokenId(), token);
+            }
+        }
+
+        private void dequeue(Long tokenId) {
+            QueuedToken token = waiting.remove(tokenId);
+            if (token == null) {
+                return;
+            }
+            if (token.doctorId() != null) {
+                IndexedHeap<QueuedToken> queue = byDoctor.get(token.doctorId());
+                if (queue != null) {
+                    queue.remove(token.tokenId());
+                }
+            } else {
+                shared.remove(token.tokenId());
+            }
+        }
+    }
+}
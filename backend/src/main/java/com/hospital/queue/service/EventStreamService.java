@@ -0,0 +1,199 @@
+package com.hospital.queue.service;
+
+import com.hospital.queue.dto.NotificationReplayResponse;
+import com.hospital.queue.websocket.NotificationOutbox;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Server-Sent Events fan-out for devices that cannot run STOMP. Each event is
+ * serialized once and the same ServerSentEvent instance is shared by every
+ * connection; streams only exist while someone is (or was recently) listening.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventStreamService {
+
+    private final JsonMapper jsonMapper;
+    private final NotificationOutbox notificationOutbox;
+
+    @Value("${sse.replay-size:64}")
+    private int replaySize;
+
+    @Value("${sse.idle-stream-minutes:10}")
+    private long idleStreamMinutes;
+
+    private final Map<Long, Stream> departmentStreams = new ConcurrentHashMap<>();
+    private final Map<Long, Stream> userStreams = new ConcurrentHashMap<>();
+
+    private final Flux<ServerSentEvent<String>> heartbeat = Flux
+            .interval(Duration.ofSeconds(15))
+            .map(tick -> ServerSentEvent.<String>builder().comment("heartbeat").build())
+            .share();
+
+    public boolean hasDepartmentStream(Long departmentId) {
+        return departmentStreams.containsKey(departmentId);
+    }
+
+    /**
+     * Live department events. A client resuming inside the replay window gets only
+     * what it missed; anyone else starts from a snapshot of the current queue.
+     */
+    public Flux<ServerSentEvent<String>> departmentEvents(
+            Long departmentId,
+            Long lastEventId,
+            Supplier<Object> snapshot
+    ) {
+        Stream stream = openStream(departmentStreams, departmentId);
+
+        if (lastEventId != null && stream.canResumeFrom(lastEventId)) {
+            return subscribe(stream, lastEventId, List.of());
+        }
+
+        long resumeAfter = stream.sequence.get();
+        return subscribe(stream, resumeAfter, List.of(toEvent("snapshot", resumeAfter, snapshot.get())));
+    }
+
+    /**
+     * Live user notifications, replaying anything missed since lastEventId from the outbox
+     */
+    public Flux<ServerSentEvent<String>> userEvents(Long userId, Long lastEventId) {
+        // Open the stream before reading the outbox so nothing slips between replay and live
+        Stream stream = openStream(userStreams, userId);
+
+        NotificationReplayResponse replay = notificationOutbox.replaySince(
+                userId,
+                lastEventId != null ? lastEventId : Long.MAX_VALUE
+        );
+
+        List<ServerSentEvent<String>> missed = new ArrayList<>();
+        long resumeAfter = lastEventId != null ? lastEventId : replay.getLatestSequence();
+
+        if (!replay.getComplete()) {
+            missed.add(toEvent("resync", null, Map.of("reason", "notifications were dropped")));
+        }
+        for (Map<String, Object> notification : replay.getNotifications()) {
+            long sequence = (Long) notification.get("sequence");
+            missed.add(toEvent((String) notification.get("channel"), sequence, notification));
+            resumeAfter = Math.max(resumeAfter, sequence);
+        }
+
+        return subscribe(stream, resumeAfter, missed);
+    }
+
+    public void publishDepartmentEvent(Long departmentId, String event, Object payload) {
+        Stream stream = departmentStreams.get(departmentId);
+        if (stream != null) {
+            stream.publish(event, null, payload);
+        }
+    }
+
+    /**
+     * Publish an outbox-stamped user notification, reusing its sequence as the event id
+     */
+    public void publishUserEvent(Long userId, Map<String, Object> notification) {
+        Stream stream = userStreams.get(userId);
+        if (stream != null) {
+            stream.publish((String) notification.get("channel"), (Long) notification.get("sequence"), notification);
+        }
+    }
+
+    public int getConnectionCount() {
+        int connections = 0;
+        for (Stream stream : departmentStreams.values()) {
+            connections += stream.connections.get();
+        }
+        for (Stream stream : userStreams.values()) {
+            connections += stream.connections.get();
+        }
+        return connections;
+    }
+
+    /**
+     * Drop streams nobody has listened to for a while so idle departments cost nothing
+     */
+    @Scheduled(fixedDelayString = "${sse.cleanup-interval-ms:60000}")
+    public void removeIdleStreams() {
+        long cutoff = System.currentTimeMillis() - idleStreamMinutes * 60_000;
+        departmentStreams.values().removeIf(stream -> stream.isIdleSince(cutoff));
+        userStreams.values().removeIf(stream -> stream.isIdleSince(cutoff));
+    }
+
+    private Stream openStream(Map<Long, Stream> streams, Long key) {
+        Stream stream = streams.computeIfAbsent(key, id -> new Stream());
+        stream.lastActive = System.currentTimeMillis();
+        return stream;
+    }
+
+    private Flux<ServerSentEvent<String>> subscribe(
+            Stream stream,
+            long resumeAfter,
+            List<ServerSentEvent<String>> initialEvents
+    ) {
+        // The replay sink hands each new subscriber the recent window atomically;
+        // the filter drops whatever the client has already seen
+        Flux<ServerSentEvent<String>> live = stream.sink.asFlux()
+                .filter(event -> Long.parseLong(event.id()) > resumeAfter);
+
+        return Flux.concat(Flux.fromIterable(initialEvents), Flux.merge(live, heartbeat))
+                .doOnSubscribe(subscription -> stream.connections.incrementAndGet())
+                .doFinally(signal -> {
+                    stream.connections.decrementAndGet();
+                    stream.lastActive = System.currentTimeMillis();
+                });
+    }
+
+    private ServerSentEvent<String> toEvent(String event, Long id, Object payload) {
+        return ServerSentEvent.<String>builder()
+                .id(id != null ? String.valueOf(id) : null)
+                .event(event)
+                .data(jsonMapper.writeValueAsString(payload))
+                .build();
+    }
+
+    private final class Stream {
+        private final Sinks.Many<ServerSentEvent<String>> sink =
+                Sinks.many().replay().limit(replaySize);
+        // Seeded from the clock so a recreated stream never reuses an id a client already saw
+        private final long baseSequence = System.currentTimeMillis() * 1000;
+        private final AtomicLong sequence = new AtomicLong(baseSequence);
+        private final AtomicInteger connections = new AtomicInteger();
+        private volatile long lastActive = System.currentTimeMillis();
+
+        private synchronized void publish(String event, Long id, Object payload) {
+            long eventId = id != null ? id : sequence.incrementAndGet();
+            if (id != null) {
+                sequence.set(id);
+            }
+            sink.tryEmitNext(toEvent(event, eventId, payload));
+        }
+
+        private boolean canResumeFrom(long lastEventId) {
+            long latest = sequence.get();
+            return lastEventId >= baseSequence
+                    && lastEventId <= latest
+                    && latest - lastEventId <= replaySize;
+        }
+
+        private boolean isIdleSince(long cutoff) {
+            return connections.get() == 0 && lastActive < cutoff;
+        }
+    }
+}
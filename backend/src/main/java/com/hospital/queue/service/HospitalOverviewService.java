@@ -0,0 +1,111 @@
+package com.hospital.queue.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hospital.queue.dto.DepartmentOverview;
+import com.hospital.queue.dto.HospitalOverviewResponse;
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.Hospital;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.repository.HospitalRepository;
+import com.hospital.queue.repository.TokenRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Today's stats for every department of a hospital from one grouped query, in place of
+ * a stats call per department. The result is shared by all callers for a few seconds,
+ * and pushed on the same schedule to /topic/hospital/{id}/overview while anyone is
+ * subscribed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HospitalOverviewService {
+
+    private static final String TOPIC_PREFIX = "/topic/hospital/";
+    private static final String TOPIC_SUFFIX = "/overview";
+
+    private final TokenRepository tokenRepository;
+    private final HospitalRepository hospitalRepository;
+    private final DepartmentRepository departmentRepository;
+    private final WebSocketService webSocketService;
+
+    @Value("${overview.cache-seconds:5}")
+    private long cacheSeconds;
+
+    private Cache<Long, HospitalOverviewResponse> overviews;
+
+    @PostConstruct
+    public void init() {
+        overviews = Caffeine.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterWrite(Duration.ofSeconds(cacheSeconds))
+                .build();
+    }
+
+    /**
+     * Concurrent callers for the same hospital wait on a single query
+     */
+    public HospitalOverviewResponse getOverview(Long hospitalId) {
+        return overviews.get(hospitalId, this::load);
+    }
+
+    @Scheduled(fixedDelayString = "${overview.push-interval-ms:10000}")
+    public void pushOverviews() {
+        for (Long hospitalId : webSocketService.subscribedIds(TOPIC_PREFIX, TOPIC_SUFFIX)) {
+            try {
+                webSocketService.broadcastHospitalOverview(hospitalId, getOverview(hospitalId));
+            } catch (RuntimeException e) {
+                log.warn("Could not push the overview of hospital {}", hospitalId, e);
+            }
+        }
+    }
+
+    private HospitalOverviewResponse load(Long hospitalId) {
+        Hospital hospital = hospitalRepository.findById(hospitalId)
+                .orElseThrow(() -> new RuntimeException("Hospital not found"));
+        LocalDateTime startOfDay = LocalDateTime.now().with(LocalTime.MIN);
+        Map<Long, TokenRepository.DepartmentTokenCounts> counts = tokenRepository
+                .countTodayByHospital(hospitalId, startOfDay).stream()
+                .collect(Collectors.toMap(TokenRepository.DepartmentTokenCounts::getDepartmentId, Function.identity()));
+
+        List<DepartmentOverview> departments = new ArrayList<>();
+        long totalToday = 0;
+        long waiting = 0;
+        for (Department department : departmentRepository.findByHospitalId(hospitalId)) {
+            TokenRepository.DepartmentTokenCounts count = counts.get(department.getId());
+            DepartmentOverview overview = count == null
+                    ? new DepartmentOverview(department.getId(), department.getName(), 0L, 0L, 0L, 0L, 0L, 0.0, 0)
+                    : new DepartmentOverview(
+                            department.getId(),
+                            department.getName(),
+                            count.getTotalToday(),
+                            count.getCompletedToday(),
+                            count.getWaiting(),
+                            count.getInProgress(),
+                            count.getCancelledToday(),
+                            count.getAverageWaitTime() != null ? count.getAverageWaitTime() : 0.0,
+                            Math.toIntExact(count.getWaiting())
+                    );
+            totalToday += overview.getTotalTokensToday();
+            waiting += overview.getWaitingTokens();
+            departments.add(overview);
+        }
+        return new HospitalOverviewResponse(hospitalId, hospital.getName(), totalToday, waiting, departments,
+                LocalDateTime.now());
+    }
+}
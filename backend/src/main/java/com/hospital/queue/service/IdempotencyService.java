@@ -0,0 +1,85 @@
+package com.hospital.queue.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hospital.queue.dto.TokenResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Makes POST /api/tokens safe to retry. The first request for a (user, Idempotency-Key)
+ * pair runs; retries - including ones that arrive while it is still running - get the
+ * same TokenResponse from a bounded, expiring in-memory store. Across instances or
+ * restarts the unique (user_id, idempotency_key) constraint catches the duplicate and
+ * the original token is returned instead.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private final TokenService tokenService;
+    private final Cache<String, CompletableFuture<TokenResponse>> responses;
+    private final LongAdder replays = new LongAdder();
+
+    public IdempotencyService(
+            TokenService tokenService,
+            @Value("${idempotency.max-keys:100000}") long maxKeys,
+            @Value("${idempotency.ttl-hours:24}") long ttlHours
+    ) {
+        this.tokenService = tokenService;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .build();
+    }
+
+    public TokenResponse createToken(Long userId, String idempotencyKey, Supplier<TokenResponse> create) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return create.get();
+        }
+
+        String key = userId + ":" + idempotencyKey;
+        CompletableFuture<TokenResponse> pending = new CompletableFuture<>();
+        CompletableFuture<TokenResponse> existing = responses.asMap().putIfAbsent(key, pending);
+
+        if (existing != null) {
+            replays.increment();
+            log.debug("Replaying token creation for idempotency key {}", key);
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            TokenResponse response;
+            try {
+                response = create.get();
+            } catch (DataIntegrityViolationException e) {
+                // Another instance (or this one before a restart) already created it
+                response = tokenService.findByIdempotencyKey(userId, idempotencyKey)
+                        .orElseThrow(() -> e);
+                replays.increment();
+            }
+            pending.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            responses.asMap().remove(key, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public long getReplayCount() {
+        return replays.sum();
+    }
+}
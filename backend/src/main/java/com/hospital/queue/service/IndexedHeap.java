@@ -0,0 +1,138 @@
+package com.hospital.queue.service;
+
+import java.util.*;
+
+/**
+ * Binary min-heap that also indexes its elements by id, so an element can be removed
+ * or re-ranked in O(log n) instead of the linear scan of PriorityQueue.remove.
+ * Not thread-safe.
+ */
+public class IndexedHeap<T> {
+
+    private final Comparator<? super T> order;
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private long[] ids = new long[16];
+    private Object[] elements = new Object[16];
+    private int size;
+
+    public IndexedHeap(Comparator<? super T> order) {
+        this.order = order;
+    }
+
+    /**
+     * Add the element, or re-rank it if the id is already present
+     */
+    public void put(long id, T element) {
+        Integer position = positions.get(id);
+        if (position != null) {
+            elements[position] = element;
+            siftDown(siftUp(position));
+            return;
+        }
+        if (size == elements.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        ids[size] = id;
+        elements[size] = element;
+        positions.put(id, size);
+        siftUp(size++);
+    }
+
+    public T remove(long id) {
+        Integer position = positions.remove(id);
+        if (position == null) {
+            return null;
+        }
+        T removed = elementAt(position);
+        size--;
+        if (position != size) {
+            move(size, position);
+            siftDown(siftUp(position));
+        }
+        elements[size] = null;
+        return removed;
+    }
+
+    public T peek() {
+        return size > 0 ? elementAt(0) : null;
+    }
+
+    public T poll() {
+        return size > 0 ? remove(ids[0]) : null;
+    }
+
+    public boolean contains(long id) {
+        return positions.containsKey(id);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Elements in heap (not sorted) order, for callers that merge several heaps
+     */
+    public List<T> elements() {
+        List<T> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(elementAt(i));
+        }
+        return list;
+    }
+
+    private int siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (order.compare(elementAt(position), elementAt(parent)) >= 0) {
+                break;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+        return position;
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && order.compare(elementAt(child + 1), elementAt(child)) < 0) {
+                child++;
+            }
+            if (order.compare(elementAt(child), elementAt(position)) >= 0) {
+                return;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a];
+        Object element = elements[a];
+        ids[a] = ids[b];
+        elements[a] = elements[b];
+        ids[b] = id;
+        elements[b] = element;
+        positions.put(ids[a], a);
+        positions.put(ids[b], b);
+    }
+
+    private void move(int from, int to) {
+        ids[to] = ids[from];
+        elements[to] = elements[from];
+        positions.put(ids[to], to);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(int position) {
+        return (T) elements[position];
+    }
+}
@@ -0,0 +1,259 @@
+package com.hospital.queue.service;
+
+import com.hospital.queue.dto.LatencyDistributionResponse;
+import com.hospital.queue.dto.LatencyPercentiles;
+import com.hospital.queue.entity.QueueAnalytics;
+import com.hospital.queue.entity.Token;
+import com.hospital.queue.event.TokenEvent;
+import com.hospital.queue.repository.QueueAnalyticsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.ShortCountsHistogram;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+
+/**
+ * Wait and service time distributions per department and booking hour, as HdrHistograms
+ * of seconds with two significant digits. Completions are recorded in memory without
+ * allocating; the deltas are merged into the hour's queue_analytics row periodically,
+ * under a row lock, so any number of nodes can flush into the same hour. Only hours with
+ * unflushed completions are held, a few KB each per department.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LatencyHistogramService {
+
+    private static final long MAX_SECONDS = Duration.ofDays(1).toSeconds();
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final QueueAnalyticsRepository analyticsRepository;
+
+    private final Map<Long, DepartmentHistograms> departments = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTokenEvent(TokenEvent event) {
+        if (event.newStatus() != Token.TokenStatus.COMPLETED
+                || event.bookingTime() == null || event.serviceStartTime() == null) {
+            return;
+        }
+        long booked = event.bookingTime().toEpochSecond(ZoneOffset.UTC);
+        long started = event.serviceStartTime().toEpochSecond(ZoneOffset.UTC);
+        long ended = event.serviceEndTime() != null ? event.serviceEndTime().toEpochSecond(ZoneOffset.UTC) : -1;
+
+        DepartmentHistograms histograms = departments.computeIfAbsent(event.departmentId(),
+                id -> new DepartmentHistograms());
+        synchronized (histograms) {
+            HourHistograms hour = histograms.hour(Math.floorDiv(booked, 3600));
+            record(hour.wait, started - booked);
+            if (ended >= 0) {
+                record(hour.service, ended - started);
+            }
+        }
+    }
+
+    /**
+     * Merge the recorded deltas into queue_analytics; on rollback they are kept for the next flush
+     */
+    @Scheduled(fixedDelayString = "${analytics.histogram.flush-interval-ms:60000}")
+    @Transactional
+    public void flush() {
+        long currentHour = Math.floorDiv(LocalDateTime.now().toEpochSecond(ZoneOffset.UTC), 3600);
+        Map<Long, List<HourHistograms>> drained = new HashMap<>();
+        departments.forEach((departmentId, histograms) -> {
+            List<HourHistograms> deltas;
+            synchronized (histograms) {
+                deltas = histograms.drain(currentHour);
+            }
+            if (!deltas.isEmpty()) {
+                drained.put(departmentId, deltas);
+            }
+        });
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    drained.forEach(LatencyHistogramService.this::restore);
+                }
+            }
+        });
+        drained.forEach((departmentId, deltas) -> deltas.forEach(delta -> merge(departmentId, delta)));
+    }
+
+    /**
+     * Percentiles over the department's booking hours between the dates, flushed and not
+     */
+    public LatencyDistributionResponse getDistribution(Long departmentId, LocalDate from, LocalDate to) {
+        Histogram wait = new Histogram(MAX_SECONDS, SIGNIFICANT_DIGITS);
+        Histogram service = new Histogram(MAX_SECONDS, SIGNIFICANT_DIGITS);
+        for (QueueAnalytics analytics : analyticsRepository.findByDepartmentIdAndDateBetween(departmentId, from, to)) {
+            wait.add(decode(analytics.getWaitHistogram()));
+            service.add(decode(analytics.getServiceHistogram()));
+        }
+
+        DepartmentHistograms histograms = departments.get(departmentId);
+        if (histograms != null) {
+            synchronized (histograms) {
+                for (HourHistograms hour : histograms.hours) {
+                    LocalDate date = hourStart(hour.epochHour).toLocalDate();
+                    if (!date.isBefore(from) && !date.isAfter(to)) {
+                        wait.add(hour.wait);
+                        service.add(hour.service);
+                    }
+                }
+            }
+        }
+        return new LatencyDistributionResponse(from, to, percentiles(wait), percentiles(service));
+    }
+
+    private void merge(Long departmentId, HourHistograms delta) {
+        LocalDateTime hourStart = hourStart(delta.epochHour);
+        Optional<QueueAnalytics> existing = analyticsRepository.findWithLockByDepartmentIdAndDateAndHour(
+                departmentId, hourStart.toLocalDate(), hourStart.getHour());
+        if (existing.isPresent()) {
+            Histogram wait = decode(existing.get().getWaitHistogram());
+            Histogram service = decode(existing.get().getServiceHistogram());
+            wait.add(delta.wait);
+            service.add(delta.service);
+            analyticsRepository.updateHistograms(existing.get().getId(), encode(wait), encode(service));
+            return;
+        }
+
+        QueueAnalytics analytics = new QueueAnalytics();
+        analytics.setDepartmentId(departmentId);
+        analytics.setDate(hourStart.toLocalDate());
+        analytics.setHour(hourStart.getHour());
+        analytics.setDayOfWeek(hourStart.getDayOfWeek().getValue());
+        analytics.setWaitHistogram(encode(delta.wait));
+        analytics.setServiceHistogram(encode(delta.service));
+        analyticsRepository.save(analytics);
+    }
+
+    private void restore(Long departmentId, List<HourHistograms> deltas) {
+        DepartmentHistograms histograms = departments.computeIfAbsent(departmentId, id -> new DepartmentHistograms());
+        synchronized (histograms) {
+            for (HourHistograms delta : deltas) {
+                HourHistograms hour = histograms.hour(delta.epochHour);
+                hour.wait.add(delta.wait);
+                hour.service.add(delta.service);
+            }
+        }
+    }
+
+    private static void record(AbstractHistogram histogram, long seconds) {
+        histogram.recordValue(Math.clamp(seconds, 0, MAX_SECONDS));
+    }
+
+    private static LatencyPercentiles percentiles(Histogram histogram) {
+        return new LatencyPercentiles(
+                histogram.getTotalCount(),
+                minutes(histogram.getValueAtPercentile(50)),
+                minutes(histogram.getValueAtPercentile(90)),
+                minutes(histogram.getValueAtPercentile(99)),
+                minutes(histogram.getMaxValue())
+        );
+    }
+
+    private static double minutes(long seconds) {
+        return Math.round(seconds / 6.0) / 10.0;
+    }
+
+    private static LocalDateTime hourStart(long epochHour) {
+        return LocalDateTime.ofEpochSecond(epochHour * 3600, 0, ZoneOffset.UTC);
+    }
+
+    private static byte[] encode(AbstractHistogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    private static Histogram decode(byte[] encoded) {
+        if (encoded == null) {
+            return new Histogram(MAX_SECONDS, SIGNIFICANT_DIGITS);
+        }
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), MAX_SECONDS);
+        } catch (DataFormatException e) {
+            throw new RuntimeException("Corrupt latency histogram", e);
+        }
+    }
+
+    /**
+     * A department's unflushed hours; usually the current one and maybe the previous
+     */
+    private static final class DepartmentHistograms {
+        private final List<HourHistograms> hours = new ArrayList<>(2);
+
+        private HourHistograms hour(long epochHour) {
+            for (HourHistograms hour : hours) {
+                if (hour.epochHour == epochHour) {
+                    return hour;
+                }
+            }
+            HourHistograms hour = new HourHistograms(epochHour);
+            hours.add(hour);
+            return hour;
+        }
+
+        /**
+         * Copies of the non-empty hours, which are then reset for reuse; hours older than
+         * the previous one are dropped once empty, which bounds the memory held
+         */
+        private List<HourHistograms> drain(long currentHour) {
+            List<HourHistograms> deltas = new ArrayList<>();
+            for (Iterator<HourHistograms> it = hours.iterator(); it.hasNext(); ) {
+                HourHistograms hour = it.next();
+                if (hour.wait.getTotalCount() > 0 || hour.service.getTotalCount() > 0) {
+                    deltas.add(hour.copy());
+                    hour.wait.reset();
+                    hour.service.reset();
+                }
+                if (hour.epochHour < currentHour - 1) {
+                    it.remove();
+                }
+            }
+            return deltas;
+        }
+    }
+
+    private static final class HourHistograms {
+        private final long epochHour;
+        private final ShortCountsHistogram wait;
+        private final ShortCountsHistogram service;
+
+        private HourHistograms(long epochHour) {
+            this(epochHour, new ShortCountsHistogram(MAX_SECONDS, SIGNIFICANT_DIGITS),
+                    new ShortCountsHistogram(MAX_SECONDS, SIGNIFICANT_DIGITS));
+        }
+
+        private HourHistograms(long epochHour, ShortCountsHistogram wait, ShortCountsHistogram service) {
+            this.epochHour = epochHour;
+            this.wait = wait;
+            this.service = service;
+        }
+
+        private HourHistograms copy() {
+            return new HourHistograms(epochHour, wait.copy(), service.copy());
+        }
+    }
+}
@@ -2,21 +2,28 @@ package com.hospital.queue.service;
 
 import com.hospital.queue.dto.WaitTimePredictionRequest;
 import com.hospital.queue.dto.WaitTimePredictionResponse;
+import com.hospital.queue.metrics.QueueMetrics;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Duration;
+
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class MLPredictionService {
 
     @Value("${ml.service.url}")
     private String mlServiceUrl;
 
     private final WebClient.Builder webClientBuilder;
+    private final QueueMetrics queueMetrics;
 
     public Integer predictWaitTime(Long departmentId) {
+        long start = System.nanoTime();
         try {
             WaitTimePredictionRequest request = new WaitTimePredictionRequest(departmentId);
 
@@ -28,11 +35,19 @@ public class MLPredictionService {
                     .bodyToMono(WaitTimePredictionResponse.class)
                     .block();
 
-            return response != null ? response.getEstimatedWaitTime() : 25;
+            if (response == null || response.getEstimatedWaitTime() == null) {
+                queueMetrics.mlPrediction(Duration.ofNanos(System.nanoTime() - start), true);
+                queueMetrics.mlFallback("empty");
+                return 25;
+            }
+            queueMetrics.mlPrediction(Duration.ofNanos(System.nanoTime() - start), false);
+            return response.getEstimatedWaitTime();
         } catch (Exception e) {
-            System.err.println("ML prediction failed: " + e.getMessage());
+            queueMetrics.mlPrediction(Duration.ofNanos(System.nanoTime() - start), true);
+            queueMetrics.mlFallback("error");
+            log.warn("ML prediction failed: {}", e.getMessage());
             // Fallback to simple calculation
             return 25;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+package com.hospital.queue.service;
+
+import com.hospital.queue.cluster.ClusterMembershipService;
+import com.hospital.queue.cluster.ShardOwnershipChangedEvent;
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.event.TokenEvent;
+import com.hospital.queue.repository.DepartmentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-department version, bumped on every committed token change, for ETags on the
+ * queue and stats endpoints: a poll whose If-None-Match still matches is answered 304
+ * without a query. Tags are weak, as Tomcat will not gzip a response with a strong one,
+ * and If-None-Match compares weakly either way. Versions live in memory, so tags also
+ * carry an epoch that changes on restart and when shards move. In cluster mode only the
+ * node owning a hospital sees its token events, so other nodes issue no tags for its
+ * departments.
+ */
+@Service
+@RequiredArgsConstructor
+public class QueueVersionService {
+
+    private final ClusterMembershipService membershipService;
+    private final DepartmentRepository departmentRepository;
+
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    private volatile long epoch = newEpoch();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onTokenEvent(TokenEvent event) {
+        if (event.departmentId() != null) {
+            versions.computeIfAbsent(event.departmentId(), id -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    @EventListener
+    public void onShardOwnershipChanged(ShardOwnershipChangedEvent event) {
+        epoch = newEpoch();
+    }
+
+    /**
+     * ETag for the department's current version, or null when this node cannot
+     * vouch for it. Read it before loading the data, so a change committed in between
+     * gives a newer tag on the next poll rather than a stale 304.
+     */
+    public String eTag(Long departmentId, String representation) {
+        if (membershipService.isEnabled() && !isLocal(departmentId)) {
+            return null;
+        }
+        AtomicLong version = versions.get(departmentId);
+        return "W/\"" + representation + "-" + Long.toHexString(epoch) + "-" + departmentId
+                + "-" + (version != null ? version.get() : 0) + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header lists the tag, or is *, by weak comparison
+     */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        String opaque = opaque(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaque(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    private boolean isLocal(Long departmentId) {
+        return departmentRepository.findById(departmentId)
+                .map(Department::getHospitalId)
+                .map(membershipService::isLocal)
+                .orElse(false);
+    }
+
+    private static long newEpoch() {
+        return ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+    }
+}
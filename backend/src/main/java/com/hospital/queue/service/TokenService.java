@@ -3,21 +3,26 @@ package com.hospital.queue.service;
 import com.hospital.queue.dto.TokenRequest;
 import com.hospital.queue.dto.TokenResponse;
 import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.Doctor;
 import com.hospital.queue.entity.Token;
 import com.hospital.queue.entity.User;
+import com.hospital.queue.event.TokenEvent;
+import com.hospital.queue.metrics.QueueMetrics;
 import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.repository.DoctorRepository;
 import com.hospital.queue.repository.TokenRepository;
 import com.hospital.queue.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,12 +32,20 @@ public class TokenService {
     private final TokenRepository tokenRepository;
     private final UserRepository userRepository;
     private final DepartmentRepository departmentRepository;
+    private final DoctorRepository doctorRepository;
     private final MLPredictionService mlPredictionService;
     private final WebSocketService webSocketService;
     private final QueueAnalyticsService analyticsService;
+    private final DoctorDispatcher doctorDispatcher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final QueueMetrics queueMetrics;
 
+    /**
+     * Create a token; a repeated idempotency key for the same user fails on the unique constraint
+     */
     @Transactional
-    public TokenResponse createToken(TokenRequest request) {
+    public TokenResponse createToken(TokenRequest request, String idempotencyKey) {
+        queueMetrics.timeTransaction("queue.token.create", null);
         User user = userRepository.findById(request.getUserId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -44,6 +57,7 @@ public class TokenService {
         token.setDepartmentId(request.getDepartmentId());
         token.setDoctorId(request.getDoctorId());
         token.setPriority(request.getPriority());
+        token.setIdempotencyKey(idempotencyKey);
         token.setTokenNumber(generateTokenNumber(request.getDepartmentId()));
 
         // Get ML prediction for wait time
@@ -51,6 +65,7 @@ public class TokenService {
         token.setEstimatedWaitTime(estimatedWait);
 
         Token savedToken = tokenRepository.save(token);
+        eventPublisher.publishEvent(TokenEvent.created(savedToken));
         TokenResponse response = mapToResponse(savedToken, user, department);
 
         // Broadcast new token creation
@@ -69,6 +84,20 @@ public class TokenService {
         return response;
     }
 
+    public Optional<TokenResponse> findByIdempotencyKey(Long userId, String idempotencyKey) {
+        return tokenRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .map(this::mapToResponse);
+    }
+
+    public Long getDepartmentIdOfToken(Long tokenId) {
+        return tokenRepository.findById(tokenId)
+                .map(Token::getDepartmentId)
+                .orElseThrow(() -> new RuntimeException("Token not found"));
+    }
+
+    /**
+     * Stays on the primary: patients reload it right after booking or a status notification
+     */
     public List<TokenResponse> getUserTokens(Long userId) {
         List<Token> tokens = tokenRepository.findByUserId(userId);
         return tokens.stream()
@@ -88,13 +117,60 @@ public class TokenService {
                         activeStatuses
                 );
 
+        // Patients being seen first, then the waiting ones in the dispatcher's aged call order
+        List<Long> waitingOrder = doctorDispatcher.waitingOrder(departmentId);
+        Map<Long, Integer> callOrder = new HashMap<>();
+        for (int i = 0; i < waitingOrder.size(); i++) {
+            callOrder.put(waitingOrder.get(i), i);
+        }
         return tokens.stream()
+                .sorted(Comparator.comparing((Token token) -> token.getStatus() != Token.TokenStatus.IN_PROGRESS)
+                        .thenComparing(token -> callOrder.getOrDefault(token.getId(), Integer.MAX_VALUE)))
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Call the next patient for a doctor; without a doctor, the least-loaded available one is chosen,
+     * and with none on duty only the shared pool is called, keeping requested doctors' patients
+     */
+    @Transactional
+    public TokenResponse callNext(Long departmentId, Long doctorId) {
+        if (doctorId != null) {
+            doctorRepository.findById(doctorId)
+                    .map(Doctor::getDepartmentId)
+                    .filter(departmentId::equals)
+                    .orElseThrow(() -> new RuntimeException("Doctor not found in department"));
+        }
+        Long assignedDoctor = doctorId != null ? doctorId : doctorDispatcher.pickDoctor(departmentId);
+
+        Long tokenId = doctorDispatcher.claimNext(departmentId, assignedDoctor);
+        if (tokenId == null) {
+            throw new RuntimeException("No patients waiting");
+        }
+
+        // Hand the claim back if this transaction does not commit
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    doctorDispatcher.release(departmentId, tokenId);
+                }
+            }
+        });
+
+        Token token = tokenRepository.findById(tokenId)
+                .orElseThrow(() -> new RuntimeException("Token not found"));
+        if (assignedDoctor != null) {
+            token.setDoctorId(assignedDoctor);
+        }
+
+        return updateTokenStatus(tokenId, Token.TokenStatus.IN_PROGRESS);
+    }
+
     @Transactional
     public TokenResponse updateTokenStatus(Long tokenId, Token.TokenStatus status) {
+        queueMetrics.timeTransaction("queue.token.status.update", status.name());
         Token token = tokenRepository.findById(tokenId)
                 .orElseThrow(() -> new RuntimeException("Token not found"));
 
@@ -157,6 +233,7 @@ public class TokenService {
         }
 
         Token updated = tokenRepository.save(token);
+        eventPublisher.publishEvent(TokenEvent.statusChanged(updated, oldStatus));
         TokenResponse response = mapToResponse(updated);
 
         // Broadcast status change
@@ -176,7 +253,43 @@ public class TokenService {
         return response;
     }
 
+    /**
+     * Move the tokens that are still in the expected status to NO_SHOW or EXPIRED in one
+     * transaction; tokens that moved on meanwhile are skipped. Returns how many changed.
+     */
+    @Transactional
+    public int expireTokens(Collection<Long> tokenIds, Token.TokenStatus expected, Token.TokenStatus status) {
+        queueMetrics.timeTransaction("queue.token.expire", status.name());
+        List<Token> tokens = tokenRepository.findAllById(tokenIds).stream()
+                .filter(token -> token.getStatus() == expected)
+                .toList();
+
+        Set<Long> departmentIds = new HashSet<>();
+        for (Token token : tokens) {
+            token.setStatus(status);
+            departmentIds.add(token.getDepartmentId());
+        }
+        tokenRepository.saveAll(tokens);
+
+        String outcome = status == Token.TokenStatus.NO_SHOW ? "was marked as a no-show" : "has expired";
+        for (Token token : tokens) {
+            eventPublisher.publishEvent(TokenEvent.statusChanged(token, expected));
+            webSocketService.broadcastStatusChange(token.getDepartmentId(), token.getId(), expected, status);
+            webSocketService.sendUserNotification(
+                    token.getUserId(),
+                    "Your token " + token.getTokenNumber() + " " + outcome + ".",
+                    "WARNING"
+            );
+        }
+        departmentIds.forEach(this::updateAndBroadcastQueueStats);
+        return tokens.size();
+    }
+
     private void updateAndBroadcastQueueStats(Long departmentId) {
+        if (!webSocketService.hasQueueStatsSubscribers(departmentId)) {
+            return;
+        }
+
         Long waitingCount = tokenRepository.countByDepartmentIdAndStatus(
                 departmentId,
                 Token.TokenStatus.WAITING
@@ -0,0 +1,75 @@
+package com.hospital.queue.service;
+
+import com.hospital.queue.entity.User;
+import com.hospital.queue.repository.UserRepository;
+import com.hospital.queue.security.PrincipalCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+@RequiredArgsConstructor
+public class UserService {
+
+    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+
+    /**
+     * Save a new user whose password is already hashed
+     */
+    @Transactional
+    public User createUser(User user) {
+        checkAvailable(user.getUsername(), user.getEmail());
+        return userRepository.save(user);
+    }
+
+    public void checkAvailable(String username, String email) {
+        if (userRepository.existsByUsername(username)) {
+            throw new RuntimeException("Username already exists");
+        }
+
+        if (userRepository.existsByEmail(email)) {
+            throw new RuntimeException("Email already exists");
+        }
+    }
+
+    @Transactional
+    public User changeRole(Long userId, User.Role role) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        user.setRole(role);
+        User saved = userRepository.save(user);
+
+        // Next request reloads the principal with the new authorities
+        evictAfterCommit(saved.getUsername());
+        return saved;
+    }
+
+    @Transactional
+    public User deactivateUser(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        user.setIsActive(false);
+        User saved = userRepository.save(user);
+
+        // Outstanding JWTs stop authenticating as soon as the principal is reloaded
+        evictAfterCommit(saved.getUsername());
+        return saved;
+    }
+
+    /**
+     * Evicting before commit would let a concurrent request reload the old row
+     */
+    private void evictAfterCommit(String username) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                principalCache.evict(username);
+            }
+        });
+    }
+}
@@ -2,12 +2,18 @@ package com.hospital.queue.service;
 
 import com.hospital.queue.dto.TokenResponse;
 import com.hospital.queue.entity.Token;
+import com.hospital.queue.metrics.QueueMetrics;
+import com.hospital.queue.websocket.NotificationOutbox;
+import com.hospital.queue.websocket.SubscriptionRegistry;
 import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -16,14 +22,28 @@ import java.util.Map;
 public class WebSocketService {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final NotificationOutbox notificationOutbox;
+    private final EventStreamService eventStreamService;
+    private final QueueMetrics queueMetrics;
 
     /**
      * Broadcast token update to all subscribers of a specific department queue
      */
     public void broadcastTokenUpdate(Long departmentId, TokenResponse tokenResponse) {
         String destination = "/topic/queue/" + departmentId;
-        log.info("Broadcasting token update to {}: {}", destination, tokenResponse.getTokenNumber());
-        messagingTemplate.convertAndSend(destination, tokenResponse);
+        if (!isObserved(departmentId, destination, "token")) {
+            return;
+        }
+        log.debug("Broadcasting token update to {}: {}", destination, tokenResponse.getTokenNumber());
+        deliver(departmentId, destination, "token", tokenResponse);
+    }
+
+    /**
+     * Whether anyone is watching the stats topic, so callers can skip the stats queries
+     */
+    public boolean hasQueueStatsSubscribers(Long departmentId) {
+        return isObserved(departmentId, "/topic/queue/" + departmentId + "/stats", "stats");
     }
 
     /**
@@ -31,12 +51,15 @@ public class WebSocketService {
      */
     public void broadcastQueueStats(Long departmentId, Map<String, Object> stats) {
         String destination = "/topic/queue/" + departmentId + "/stats";
-        log.info("Broadcasting queue stats to {}", destination);
-        messagingTemplate.convertAndSend(destination, (Object) stats);
+        if (!isObserved(departmentId, destination, "stats")) {
+            return;
+        }
+        log.debug("Broadcasting queue stats to {}", destination);
+        deliver(departmentId, destination, "stats", stats);
     }
 
     /**
-     * Send notification to specific user
+     * Send notification to specific user; kept in the outbox for replay even when offline
      */
     public void sendUserNotification(Long userId, String message, String type) {
         String destination = "/queue/user/" + userId + "/notifications";
@@ -45,9 +68,15 @@ public class WebSocketService {
         notification.put("message", message);
         notification.put("type", type);
         notification.put("timestamp", System.currentTimeMillis());
+        notificationOutbox.append(userId, "notifications", notification);
+        eventStreamService.publishUserEvent(userId, notification);
 
-        log.info("Sending notification to user {}: {}", userId, message);
-        messagingTemplate.convertAndSend(destination, (Object) notification);
+        if (!subscriptionRegistry.hasSubscribers(destination)) {
+            return;
+        }
+
+        log.debug("Sending notification to user {}: {}", userId, message);
+        send(destination, "notification", notification);
     }
 
     /**
@@ -55,6 +84,9 @@ public class WebSocketService {
      */
     public void broadcastStatusChange(Long departmentId, Long tokenId, Token.TokenStatus oldStatus, Token.TokenStatus newStatus) {
         String destination = "/topic/queue/" + departmentId + "/status";
+        if (!isObserved(departmentId, destination, "status")) {
+            return;
+        }
 
         Map<String, Object> statusChange = new HashMap<>();
         statusChange.put("tokenId", tokenId);
@@ -62,9 +94,9 @@ public class WebSocketService {
         statusChange.put("newStatus", newStatus);
         statusChange.put("timestamp", System.currentTimeMillis());
 
-        log.info("Broadcasting status change for token {} from {} to {}",
+        log.debug("Broadcasting status change for token {} from {} to {}",
                 tokenId, oldStatus, newStatus);
-        messagingTemplate.convertAndSend(destination, (Object) statusChange);
+        deliver(departmentId, destination, "status", statusChange);
     }
 
     /**
@@ -72,8 +104,11 @@ public class WebSocketService {
      */
     public void broadcastNewToken(Long departmentId, TokenResponse tokenResponse) {
         String destination = "/topic/queue/" + departmentId + "/new";
-        log.info("Broadcasting new token to {}: {}", destination, tokenResponse.getTokenNumber());
-        messagingTemplate.convertAndSend(destination, tokenResponse);
+        if (!isObserved(departmentId, destination, "new")) {
+            return;
+        }
+        log.debug("Broadcasting new token to {}: {}", destination, tokenResponse.getTokenNumber());
+        deliver(departmentId, destination, "new", tokenResponse);
     }
 
     /**
@@ -81,14 +116,17 @@ public class WebSocketService {
      */
     public void broadcastTokenCancellation(Long departmentId, Long tokenId, String tokenNumber) {
         String destination = "/topic/queue/" + departmentId + "/cancelled";
+        if (!isObserved(departmentId, destination, "cancelled")) {
+            return;
+        }
 
         Map<String, Object> cancellation = new HashMap<>();
         cancellation.put("tokenId", tokenId);
         cancellation.put("tokenNumber", tokenNumber);
         cancellation.put("timestamp", System.currentTimeMillis());
 
-        log.info("Broadcasting token cancellation: {}", tokenNumber);
-        messagingTemplate.convertAndSend(destination, (Object) cancellation);
+        log.debug("Broadcasting token cancellation: {}", tokenNumber);
+        deliver(departmentId, destination, "cancelled", cancellation);
     }
 
     /**
@@ -96,23 +134,64 @@ public class WebSocketService {
      */
     public void broadcastLiveDisplayUpdate(Long departmentId, Object displayData) {
         String destination = "/topic/display/" + departmentId;
-        log.info("Broadcasting live display update to {}", destination);
-        messagingTemplate.convertAndSend(destination, displayData);
+        if (!isObserved(departmentId, destination, "display")) {
+            return;
+        }
+        log.debug("Broadcasting live display update to {}", destination);
+        deliver(departmentId, destination, "display", displayData);
     }
 
     /**
-     * Send alert to all admins
+     * Send an alert to the admins of the hospital and to system admins
      */
-    public void sendAdminAlert(String message, String severity) {
-        String destination = "/topic/admin/alerts";
-
+    public void sendAdminAlert(Long hospitalId, String message, String severity) {
         Map<String, Object> alert = new HashMap<>();
+        alert.put("hospitalId", hospitalId);
         alert.put("message", message);
         alert.put("severity", severity);
         alert.put("timestamp", System.currentTimeMillis());
 
-        log.info("Sending admin alert: {} ({})", message, severity);
-        messagingTemplate.convertAndSend(destination, (Object) alert);
+        log.info("Sending admin alert for hospital {}: {} ({})", hospitalId, message, severity);
+        if (hospitalId != null) {
+            String destination = "/topic/admin/" + hospitalId + "/alerts";
+            if (subscriptionRegistry.hasSubscribers(destination)) {
+                send(destination, "alert", alert);
+            }
+        }
+        String destination = "/topic/admin/alerts";
+        if (subscriptionRegistry.hasSubscribers(destination)) {
+            send(destination, "alert", alert);
+        }
+    }
+
+    /**
+     * Broadcast the hospital-wide overview to its admin screens
+     */
+    public void broadcastHospitalOverview(Long hospitalId, Object overview) {
+        String destination = "/topic/hospital/" + hospitalId + "/overview";
+        if (!subscriptionRegistry.hasSubscribers(destination)) {
+            return;
+        }
+        log.debug("Broadcasting hospital overview to {}", destination);
+        send(destination, "overview", overview);
+    }
+
+    /**
+     * Ids of the destinations prefix{id}suffix that have subscribers, for periodic pushes
+     */
+    public List<Long> subscribedIds(String prefix, String suffix) {
+        List<Long> ids = new ArrayList<>();
+        for (String destination : subscriptionRegistry.getSubscriberCounts().keySet()) {
+            if (destination.startsWith(prefix) && destination.endsWith(suffix)
+                    && destination.length() > prefix.length() + suffix.length()) {
+                try {
+                    ids.add(Long.parseLong(destination.substring(prefix.length(), destination.length() - suffix.length())));
+                } catch (NumberFormatException ignored) {
+                    // not an id destination
+                }
+            }
+        }
+        return ids;
     }
 
     /**
@@ -120,19 +199,22 @@ public class WebSocketService {
      */
     public void broadcastWaitTimeUpdate(Long departmentId, Integer estimatedWaitTime, Integer queueLength) {
         String destination = "/topic/queue/" + departmentId + "/waittime";
+        if (!isObserved(departmentId, destination, "waittime")) {
+            return;
+        }
 
         Map<String, Object> waitTimeUpdate = new HashMap<>();
         waitTimeUpdate.put("estimatedWaitTime", estimatedWaitTime);
         waitTimeUpdate.put("queueLength", queueLength);
         waitTimeUpdate.put("timestamp", System.currentTimeMillis());
 
-        log.info("Broadcasting wait time update: {} min for {} people",
+        log.debug("Broadcasting wait time update: {} min for {} people",
                 estimatedWaitTime, queueLength);
-        messagingTemplate.convertAndSend(destination, (Object) waitTimeUpdate);
+        deliver(departmentId, destination, "waittime", waitTimeUpdate);
     }
 
     /**
-     * Send token call notification - when it's user's turn
+     * Send token call notification - when it's user's turn; kept in the outbox for replay
      */
     public void sendTokenCallNotification(Long userId, String tokenNumber, String departmentName) {
         String destination = "/queue/user/" + userId + "/call";
@@ -142,8 +224,41 @@ public class WebSocketService {
         callNotification.put("departmentName", departmentName);
         callNotification.put("message", "Your turn! Please proceed to " + departmentName);
         callNotification.put("timestamp", System.currentTimeMillis());
+        notificationOutbox.append(userId, "call", callNotification);
+        eventStreamService.publishUserEvent(userId, callNotification);
+
+        if (!subscriptionRegistry.hasSubscribers(destination)) {
+            return;
+        }
+
+        log.debug("Sending call notification to user {}: {}", userId, tokenNumber);
+        send(destination, "call", callNotification);
+    }
+
+    /**
+     * Whether a STOMP subscriber or an SSE stream is watching this department destination
+     */
+    private boolean isObserved(Long departmentId, String destination, String event) {
+        boolean observed = subscriptionRegistry.hasSubscribers(destination)
+                || eventStreamService.hasDepartmentStream(departmentId);
+        if (!observed) {
+            queueMetrics.broadcastSkipped(event);
+        }
+        return observed;
+    }
+
+    private void deliver(Long departmentId, String destination, String event, Object payload) {
+        Timer.Sample sample = queueMetrics.startSample();
+        if (subscriptionRegistry.hasSubscribers(destination)) {
+            messagingTemplate.convertAndSend(destination, payload);
+        }
+        eventStreamService.publishDepartmentEvent(departmentId, event, payload);
+        queueMetrics.broadcastSent(event, sample);
+    }
 
-        log.info("Sending call notification to user {}: {}", userId, tokenNumber);
-        messagingTemplate.convertAndSend(destination, (Object) callNotification);
+    private void send(String destination, String event, Object payload) {
+        Timer.Sample sample = queueMetrics.startSample();
+        messagingTemplate.convertAndSend(destination, payload);
+        queueMetrics.broadcastSent(event, sample);
     }
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+package com.hospital.queue.websocket;
+
+import com.hospital.queue.dto.NotificationReplayResponse;
+import com.hospital.queue.entity.UserNotification;
+import com.hospital.queue.repository.UserNotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded per-user ring buffer of sent notifications so a reconnecting client
+ * can fetch exactly what it missed without touching the tokens table.
+ * Entries pushed out by capacity or retention can optionally spill to the
+ * user_notifications table.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationOutbox {
+
+    private final UserNotificationRepository notificationRepository;
+    private final JsonMapper jsonMapper;
+
+    @Value("${notifications.outbox.capacity:32}")
+    private int capacity;
+
+    @Value("${notifications.outbox.retention-minutes:120}")
+    private long retentionMinutes;
+
+    @Value("${notifications.outbox.spill-enabled:false}")
+    private boolean spillEnabled;
+
+    // Seeded from the clock so sequences keep increasing across restarts
+    private final long baseSequence = System.currentTimeMillis() * 1000;
+    private final AtomicLong sequence = new AtomicLong(baseSequence);
+
+    // Highest sequence dropped from memory without spilling, across all users
+    private final AtomicLong droppedUpTo = new AtomicLong(baseSequence);
+
+    private final Map<Long, UserOutbox> outboxes = new ConcurrentHashMap<>();
+
+    /**
+     * Stamp the notification with its sequence and channel and keep it for replay
+     */
+    public Map<String, Object> append(Long userId, String channel, Map<String, Object> notification) {
+        while (true) {
+            UserOutbox outbox = outboxes.computeIfAbsent(userId, id -> new UserOutbox());
+            Entry evicted;
+            synchronized (outbox) {
+                if (outbox.retired) {
+                    continue;
+                }
+                long seq = sequence.incrementAndGet();
+                notification.put("sequence", seq);
+                notification.put("channel", channel);
+
+                outbox.entries.addLast(new Entry(seq, channel, notification, System.currentTimeMillis()));
+                evicted = outbox.entries.size() > capacity ? outbox.entries.pollFirst() : null;
+                if (evicted != null) {
+                    outbox.evictedUpTo = evicted.sequence();
+                }
+            }
+            if (evicted != null) {
+                drop(userId, evicted);
+            }
+            return notification;
+        }
+    }
+
+    /**
+     * Notifications for the user with a sequence greater than afterSequence, oldest first.
+     * The returned latest sequence is the cursor for the next replay: the highest of the
+     * user's sequences seen here, never the global counter, as a notification numbered
+     * below that may not have been appended yet.
+     */
+    public NotificationReplayResponse replaySince(Long userId, long afterSequence) {
+        List<Map<String, Object>> missed = new ArrayList<>();
+        long evictedUpTo;
+        long latestSequence;
+
+        UserOutbox outbox = outboxes.get(userId);
+        if (outbox != null) {
+            synchronized (outbox) {
+                evictedUpTo = outbox.evictedUpTo;
+                latestSequence = outbox.entries.isEmpty() ? evictedUpTo : outbox.entries.peekLast().sequence();
+                for (Entry entry : outbox.entries) {
+                    if (entry.sequence() > afterSequence) {
+                        missed.add(entry.payload());
+                    }
+                }
+            }
+        } else {
+            evictedUpTo = droppedUpTo.get();
+            latestSequence = evictedUpTo;
+        }
+        latestSequence = Math.max(latestSequence, afterSequence);
+
+        boolean complete = afterSequence >= evictedUpTo && afterSequence >= baseSequence;
+
+        if (!complete && spillEnabled) {
+            long firstBuffered = missed.isEmpty()
+                    ? Long.MAX_VALUE
+                    : (Long) missed.get(0).get("sequence");
+            List<Map<String, Object>> spilled = new ArrayList<>();
+            for (UserNotification stored : notificationRepository
+                    .findByUserIdAndSequenceGreaterThanOrderBySequenceAsc(userId, afterSequence)) {
+                if (stored.getSequence() < firstBuffered) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> payload = jsonMapper.readValue(stored.getPayload(), Map.class);
+                    spilled.add(payload);
+                }
+            }
+            spilled.addAll(missed);
+            missed = spilled;
+            complete = true;
+            if (!missed.isEmpty()) {
+                latestSequence = Math.max(latestSequence, (Long) missed.get(missed.size() - 1).get("sequence"));
+            }
+        }
+
+        return new NotificationReplayResponse(missed, latestSequence, complete);
+    }
+
+    /**
+     * Drop entries past retention and forget users with nothing left to replay
+     */
+    @Scheduled(fixedDelayString = "${notifications.outbox.cleanup-interval-ms:60000}")
+    public void expireOldEntries() {
+        long cutoff = System.currentTimeMillis() - retentionMinutes * 60_000;
+
+        outboxes.forEach((userId, outbox) -> {
+            List<Entry> expired = new ArrayList<>();
+            synchronized (outbox) {
+                while (!outbox.entries.isEmpty() && outbox.entries.peekFirst().createdAt() < cutoff) {
+                    Entry entry = outbox.entries.pollFirst();
+                    outbox.evictedUpTo = entry.sequence();
+                    expired.add(entry);
+                }
+                if (outbox.entries.isEmpty()) {
+                    outbox.retired = true;
+                    droppedUpTo.accumulateAndGet(outbox.evictedUpTo, Math::max);
+                }
+            }
+            if (outbox.retired) {
+                outboxes.remove(userId, outbox);
+            }
+            expired.forEach(entry -> drop(userId, entry));
+        });
+    }
+
+    public int getBufferedUserCount() {
+        return outboxes.size();
+    }
+
+    private void drop(Long userId, Entry entry) {
+        if (!spillEnabled) {
+            return;
+        }
+        try {
+            UserNotification stored = new UserNotification();
+            stored.setUserId(userId);
+            stored.setSequence(entry.sequence());
+            stored.setChannel(entry.channel());
+            stored.setPayload(jsonMapper.writeValueAsString(entry.payload()));
+            notificationRepository.save(stored);
+        } catch (Exception e) {
+            log.warn("Could not spill notification {} for user {}: {}",
+                    entry.sequence(), userId, e.getMessage());
+        }
+    }
+
+    private record Entry(long sequence, String channel, Map<String, Object> payload, long createdAt) {
+    }
+
+    private final class UserOutbox {
+        private final Deque<Entry> entries = new ArrayDeque<>();
+        private long evictedUpTo = droppedUpTo.get();
+        private boolean retired;
+    }
+}
@@ -0,0 +1,112 @@
+package com.hospital.queue.websocket;
+
+import com.hospital.queue.metrics.QueueMetrics;
+import com.hospital.queue.security.JwtTokenProvider;
+import com.hospital.queue.security.PrincipalCache;
+import com.hospital.queue.security.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Authenticates the STOMP CONNECT frame once from its Authorization header and pins
+ * the principal to the session. SUBSCRIBE and SEND frames are then checked against
+ * SubscriptionAuthorizer using that pinned principal, with no JWT parsing or DB access.
+ * Connecting without a token is allowed for public display boards.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final String EXPIRY_ATTRIBUTE = "jwt.expiresAt";
+
+    private final JwtTokenProvider tokenProvider;
+    private final PrincipalCache principalCache;
+    private final SubscriptionAuthorizer subscriptionAuthorizer;
+    private final QueueMetrics queueMetrics;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor =
+                MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        StompCommand command = accessor.getCommand();
+        if (command == StompCommand.CONNECT) {
+            authenticate(accessor);
+        } else if (command == StompCommand.SUBSCRIBE) {
+            UserPrincipal principal = sessionPrincipal(accessor);
+            if (!subscriptionAuthorizer.canSubscribe(principal, accessor.getDestination())) {
+                queueMetrics.authFailure("stomp_subscribe_denied");
+                throw new MessageDeliveryException("Not allowed to subscribe to " + accessor.getDestination());
+            }
+        } else if (command == StompCommand.SEND) {
+            if (!subscriptionAuthorizer.canSend(sessionPrincipal(accessor))) {
+                queueMetrics.authFailure("stomp_send_denied");
+                throw new MessageDeliveryException("Not allowed to send to " + accessor.getDestination());
+            }
+        }
+        return message;
+    }
+
+    private void authenticate(StompHeaderAccessor accessor) {
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (!StringUtils.hasText(header)) {
+            return; // anonymous session, public destinations only
+        }
+
+        String jwt = header.startsWith("Bearer ") ? header.substring(7) : header;
+        Claims claims = tokenProvider.parseToken(jwt);
+        UserPrincipal principal = claims != null ? principalCache.get(claims.getSubject()) : null;
+        if (principal == null || !principal.isEnabled()) {
+            queueMetrics.authFailure("stomp_connect_rejected");
+            throw new MessageDeliveryException("Invalid or expired token");
+        }
+
+        accessor.setUser(new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                principal.getAuthorities()
+        ));
+
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes != null && claims.getExpiration() != null) {
+            attributes.put(EXPIRY_ATTRIBUTE, claims.getExpiration().getTime());
+        }
+        log.debug("STOMP session {} authenticated as {}", accessor.getSessionId(), principal.getUsername());
+    }
+
+    /**
+     * The principal pinned at CONNECT, or null for anonymous or expired sessions
+     */
+    private UserPrincipal sessionPrincipal(StompHeaderAccessor accessor) {
+        Principal user = accessor.getUser();
+        if (!(user instanceof UsernamePasswordAuthenticationToken authentication)
+                || !(authentication.getPrincipal() instanceof UserPrincipal principal)) {
+            return null;
+        }
+
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        Object expiresAt = attributes != null ? attributes.get(EXPIRY_ATTRIBUTE) : null;
+        if (expiresAt instanceof Long expiry && expiry <= System.currentTimeMillis()) {
+            return null;
+        }
+        return principal;
+    }
+}
@@ -0,0 +1,156 @@
+package com.hospital.queue.websocket;
+
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.User;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * In-memory rule table deciding who may SUBSCRIBE to which STOMP destination.
+ * <ul>
+ *   <li>/queue/user/{id}/** - only that user</li>
+ *   <li>/topic/admin/{hospitalId}/alerts - admins of that hospital</li>
+ *   <li>/topic/admin/alerts - system admins (every hospital's alerts)</li>
+ *   <li>/topic/queue/{departmentId}/stats - admins of the department's hospital</li>
+ *   <li>/topic/hospital/{hospitalId}/overview - admins of that hospital</li>
+ *   <li>/topic/queue/{departmentId}, /topic/queue/{departmentId}/{status,new,cancelled,waittime},
+ *       /topic/display/{departmentId} - anyone (public boards)</li>
+ * </ul>
+ * Anything else is denied, including patterns: the simple broker matches subscriptions
+ * as Ant patterns, so /topic/queue/1/** would also receive /topic/queue/1/stats.
+ */
+@Component
+@RequiredArgsConstructor
+public class SubscriptionAuthorizer {
+
+    private static final String USER_PREFIX = "/queue/user/";
+    private static final String ADMIN_PREFIX = "/topic/admin/";
+    private static final String QUEUE_PREFIX = "/topic/queue/";
+    private static final String DISPLAY_PREFIX = "/topic/display/";
+    private static final String HOSPITAL_PREFIX = "/topic/hospital/";
+    private static final Set<String> PUBLIC_QUEUE_SUFFIXES = Set.of("", "/status", "/new", "/cancelled", "/waittime");
+
+    private final DepartmentRepository departmentRepository;
+
+    public boolean canSubscribe(UserPrincipal principal, String destination) {
+        if (destination == null || isPattern(destination)) {
+            return false;
+        }
+
+        if (destination.startsWith(USER_PREFIX)) {
+            Long userId = leadingId(destination, USER_PREFIX.length());
+            return principal != null && userId != null && userId.equals(principal.getId());
+        }
+
+        if (destination.startsWith(ADMIN_PREFIX)) {
+            if (destination.equals(ADMIN_PREFIX + "alerts")) {
+                return principal != null && principal.getRole() == User.Role.SYSTEM_ADMIN;
+            }
+            Long hospitalId = leadingId(destination, ADMIN_PREFIX.length());
+            return hospitalId != null
+                    && destination.equals(ADMIN_PREFIX + hospitalId + "/alerts")
+                    && canManageHospital(principal, hospitalId);
+        }
+
+        if (destination.startsWith(QUEUE_PREFIX)) {
+            Long departmentId = leadingId(destination, QUEUE_PREFIX.length());
+            if (departmentId == null) {
+                return false;
+            }
+            int end = destination.indexOf('/', QUEUE_PREFIX.length());
+            String suffix = end < 0 ? "" : destination.substring(end);
+            if (suffix.equals("/stats")) {
+                return canManageDepartment(principal, departmentId);
+            }
+            return PUBLIC_QUEUE_SUFFIXES.contains(suffix);
+        }
+
+        if (destination.startsWith(HOSPITAL_PREFIX)) {
+            Long hospitalId = leadingId(destination, HOSPITAL_PREFIX.length());
+            return hospitalId != null
+                    && destination.equals(HOSPITAL_PREFIX + hospitalId + "/overview")
+                    && canManageHospital(principal, hospitalId);
+        }
+
+        if (destination.startsWith(DISPLAY_PREFIX)) {
+            Long departmentId = leadingId(destination, DISPLAY_PREFIX.length());
+            return departmentId != null && destination.equals(DISPLAY_PREFIX + departmentId);
+        }
+
+        return false;
+    }
+
+    /**
+     * Application SENDs (e.g. /app/queue/update) rebroadcast to everyone, so only staff may send
+     */
+    public boolean canSend(UserPrincipal principal) {
+        return isStaff(principal);
+    }
+
+    private boolean canManageDepartment(UserPrincipal principal, Long departmentId) {
+        if (principal == null) {
+            return false;
+        }
+        if (principal.getRole() == User.Role.SYSTEM_ADMIN) {
+            return true;
+        }
+        if (principal.getRole() != User.Role.HOSPITAL_ADMIN || principal.getHospitalId() == null) {
+            return false;
+        }
+        return principal.getHospitalId().equals(hospitalOf(departmentId));
+    }
+
+    /**
+     * System admins, and hospital admins of that hospital
+     */
+    public static boolean canManageHospital(UserPrincipal principal, Long hospitalId) {
+        if (principal == null) {
+            return false;
+        }
+        if (principal.getRole() == User.Role.SYSTEM_ADMIN) {
+            return true;
+        }
+        return principal.getRole() == User.Role.HOSPITAL_ADMIN && hospitalId.equals(principal.getHospitalId());
+    }
+
+    private Long hospitalOf(Long departmentId) {
+        // served from the reference-data cache after the first lookup
+        return departmentRepository.findById(departmentId)
+                .map(Department::getHospitalId)
+                .orElse(null);
+    }
+
+    private static boolean isPattern(String destination) {
+        return destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0;
+    }
+
+    private static boolean isStaff(UserPrincipal principal) {
+        return principal != null && principal.getRole() != User.Role.USER;
+    }
+
+    /**
+     * Parse the numeric path segment starting at offset, e.g. 42 in /topic/queue/42/stats
+     */
+    private static Long leadingId(String destination, int offset) {
+        int end = destination.indexOf('/', offset);
+        if (end < 0) {
+            end = destination.length();
+        }
+        if (end == offset) {
+            return null;
+        }
+        long id = 0;
+        for (int i = offset; i < end; i++) {
+            char c = destination.charAt(i);
+            if (c < '0' || c > '9' || i - offset > 18) {
+                return null;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+}
@@ -0,0 +1,168 @@
+package com.hospital.queue.websocket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Tracks live STOMP subscriptions per destination so broadcasts to
+ * destinations nobody is watching can be skipped before any payload is built.
+ * Counts are also kept per destination family (ids replaced by {id}, all of a
+ * user's queues as one family) and exported as the queue.stomp.subscriptions gauge.
+ */
+@Component
+@Slf4j
+public class SubscriptionRegistry {
+
+    private static final String USER_PREFIX = "/queue/user/";
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private final MeterRegistry meterRegistry;
+
+    // sessionId -> (subscriptionId -> destination)
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    // destination -> live subscriber count; absent means zero
+    private final Map<String, Integer> subscriberCounts = new ConcurrentHashMap<>();
+
+    // destination family -> live subscriber count, kept once seen so its gauge stays valid
+    private final Map<String, AtomicInteger> familyCounts = new ConcurrentHashMap<>();
+
+    public SubscriptionRegistry() {
+        this.meterRegistry = null;
+    }
+
+    @Autowired
+    public SubscriptionRegistry(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+        String destination = accessor.getDestination();
+
+        if (sessionId == null || subscriptionId == null || destination == null) {
+            return;
+        }
+
+        String previous = sessions
+                .computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+
+        if (previous != null) {
+            decrement(previous);
+        }
+        subscriberCounts.merge(destination, 1, Integer::sum);
+        familyCount(destination).incrementAndGet();
+        log.debug("Session {} subscribed to {}", sessionId, destination);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(accessor.getSessionId());
+        if (subscriptions == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+
+        String destination = subscriptions.remove(accessor.getSubscriptionId());
+        if (destination != null) {
+            decrement(destination);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::decrement);
+        }
+    }
+
+    /**
+     * Whether at least one live session is subscribed to the destination
+     */
+    public boolean hasSubscribers(String destination) {
+        return subscriberCounts.containsKey(destination);
+    }
+
+    public int getSubscriberCount(String destination) {
+        return subscriberCounts.getOrDefault(destination, 0);
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Point-in-time copy of subscriber counts, sorted by destination
+     */
+    public Map<String, Integer> getSubscriberCounts() {
+        return new TreeMap<>(subscriberCounts);
+    }
+
+    /**
+     * Point-in-time subscriber counts per destination family, sorted; no user ids
+     */
+    public Map<String, Integer> getSubscriberCountsByFamily() {
+        Map<String, Integer> counts = new TreeMap<>();
+        familyCounts.forEach((family, count) -> {
+            if (count.get() > 0) {
+                counts.put(family, count.get());
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * /topic/queue/42/status becomes /topic/queue/{id}/status; every /queue/user/... is /queue/user/{id}/**
+     */
+    static String family(String destination) {
+        if (destination.startsWith(USER_PREFIX)) {
+            return USER_PREFIX + "{id}/**";
+        }
+        return ID_SEGMENT.matcher(destination).replaceAll("/{id}");
+    }
+
+    private void decrement(String destination) {
+        subscriberCounts.computeIfPresent(destination, (key, count) -> count > 1 ? count - 1 : null);
+        familyCount(destination).decrementAndGet();
+    }
+
+    private AtomicInteger familyCount(String destination) {
+        String family = family(destination);
+        AtomicInteger count = familyCounts.get(family);
+        if (count != null) {
+            return count;
+        }
+        AtomicInteger created = new AtomicInteger();
+        count = familyCounts.putIfAbsent(family, created);
+        if (count != null) {
+            return count;
+        }
+        if (meterRegistry != null) {
+            Gauge.builder("queue.stomp.subscriptions", created, AtomicInteger::get)
+                    .description("Live STOMP subscriptions per destination family")
+                    .tag("destination", family)
+                    .register(meterRegistry);
+        }
+        return created;
+    }
+}
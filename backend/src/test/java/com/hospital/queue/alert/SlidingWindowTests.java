@@ -0,0 +1,89 @@
+package com.hospital.queue.alert;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowTests {
+
+    private static final int BUCKETS = 30;
+    private static final long BUCKET_MILLIS = 60_000;
+    private static final long START = 1_000 * BUCKET_MILLIS;
+
+    private final SlidingWindow window = new SlidingWindow(BUCKETS, BUCKET_MILLIS, 48, 5);
+
+    @Test
+    void countsEventsWithinTheWindow() {
+        window.recordArrival(START);
+        window.recordArrival(START + 10 * BUCKET_MILLIS);
+        window.recordCompletion(START + 20 * BUCKET_MILLIS);
+
+        assertEquals(2, window.getArrivals(START + 20 * BUCKET_MILLIS));
+        assertEquals(1, window.getCompletions(START + 20 * BUCKET_MILLIS));
+    }
+
+    @Test
+    void bucketsSlideOutOfTheWindow() {
+        window.recordArrival(START);
+        window.recordArrival(START + 10 * BUCKET_MILLIS);
+
+        assertEquals(2, window.getArrivals(START + (BUCKETS - 1) * BUCKET_MILLIS));
+        assertEquals(1, window.getArrivals(START + BUCKETS * BUCKET_MILLIS));
+        assertEquals(0, window.getArrivals(START + (BUCKETS + 10) * BUCKET_MILLIS));
+    }
+
+    @Test
+    void jumpFarAheadClearsEverything() {
+        window.recordArrival(START);
+        window.recordCompletion(START);
+        window.recordWait(START, 30);
+
+        long later = START + 1_000 * BUCKETS * BUCKET_MILLIS;
+        assertEquals(0, window.getArrivals(later));
+        assertEquals(0, window.getCompletions(later));
+        assertEquals(0, window.getWaitCount(later));
+
+        window.recordArrival(later);
+        assertEquals(1, window.getArrivals(later));
+    }
+
+    @Test
+    void lateEventsLandInTheCurrentBucket() {
+        window.recordArrival(START + 5 * BUCKET_MILLIS);
+        window.recordArrival(START); // out of order
+
+        assertEquals(2, window.getArrivals(START + 5 * BUCKET_MILLIS));
+        // Both leave together with the current bucket
+        assertEquals(0, window.getArrivals(START + (BUCKETS + 5) * BUCKET_MILLIS));
+    }
+
+    @Test
+    void waitPercentileIsTheUpperEdgeOfItsBin() {
+        for (int i = 0; i < 9; i++) {
+            window.recordWait(START, 12); // bin 10-15
+        }
+        window.recordWait(START, 47); // bin 45-50
+
+        assertEquals(10, window.getWaitCount(START));
+        assertEquals(15, window.getWaitPercentileMinutes(START, 50));
+        assertEquals(15, window.getWaitPercentileMinutes(START, 90));
+        assertEquals(50, window.getWaitPercentileMinutes(START, 95));
+    }
+
+    @Test
+    void longWaitsGoToTheOpenEndedLastBin() {
+        window.recordWait(START, 10_000);
+        window.recordWait(START, -3); // clock skew
+
+        assertEquals(5, window.getWaitPercentileMinutes(START, 50));
+        assertEquals(48 * 5, window.getWaitPercentileMinutes(START, 100));
+    }
+
+    @Test
+    void noWaitsGiveZeroPercentile() {
+        assertEquals(0, window.getWaitPercentileMinutes(START, 90));
+
+        window.recordWait(START, 20);
+        assertEquals(0, window.getWaitPercentileMinutes(START + BUCKETS * BUCKET_MILLIS, 90));
+    }
+}
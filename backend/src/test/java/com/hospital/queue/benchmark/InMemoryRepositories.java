@@ -0,0 +1,39 @@
+package com.hospital.queue.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins for Spring Data repositories, so benchmarks measure the service
+ * code rather than a database. Each stand-in answers only the methods it is given
+ * (by name) and fails loudly on anything else, so a benchmark cannot silently hit an
+ * unimplemented query. Also used by the load tools that drive services directly.
+ */
+public final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <R> R stub(Class<R> repositoryType, Map<String, Function<Object[], Object>> methods) {
+        return (R) Proxy.newProxyInstance(
+                repositoryType.getClassLoader(),
+                new Class<?>[]{repositoryType},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "equals" -> proxy == args[0];
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            default -> "InMemory" + repositoryType.getSimpleName();
+                        };
+                    }
+                    Function<Object[], Object> implementation = methods.get(method.getName());
+                    if (implementation == null) {
+                        throw new UnsupportedOperationException(
+                                repositoryType.getSimpleName() + "." + method.getName() + " has no in-memory stand-in");
+                    }
+                    return implementation.apply(args);
+                });
+    }
+}
@@ -0,0 +1,91 @@
+package com.hospital.queue.benchmark;
+
+import com.hospital.queue.metrics.QueueMetrics;
+import com.hospital.queue.security.JwtAuthenticationFilter;
+import com.hospital.queue.entity.User;
+import com.hospital.queue.security.JwtTokenProvider;
+import com.hospital.queue.security.PrincipalCache;
+import com.hospital.queue.security.UserPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request through JwtAuthenticationFilter,
+ * with the verified-token cache disabled (0) and enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "HOSPITAL_QUEUE_9F3A2B8D7C1E5A6F9D3C2B1A";
+
+    @Param({"0", "10000"})
+    private long cacheSize;
+
+    private JwtTokenProvider tokenProvider;
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        UserPrincipal user = new UserPrincipal(1L, "patient01", null, User.Role.USER, 1L, true);
+
+        QueueMetrics metrics = new QueueMetrics(new SimpleMeterRegistry(), null);
+        tokenProvider = new JwtTokenProvider(SECRET, 86_400_000L, cacheSize, metrics);
+        filter = new JwtAuthenticationFilter(
+                tokenProvider,
+                new PrincipalCache(username -> user, Duration.ofMinutes(5), 10_000),
+                metrics
+        );
+        token = tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities())
+        );
+
+        request = new MockHttpServletRequest("GET", "/api/tokens/user/1");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public Object filterRequest() throws Exception {
+        filter.doFilter(request, response, chain);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public String getUsername() {
+        return tokenProvider.getUsernameFromToken(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
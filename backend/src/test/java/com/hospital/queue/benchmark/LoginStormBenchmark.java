@@ -0,0 +1,82 @@
+package com.hospital.queue.benchmark;
+
+import com.hospital.queue.dto.TokenRequest;
+import com.hospital.queue.dto.TokenResponse;
+import com.hospital.queue.security.LoginThrottledException;
+import com.hospital.queue.security.PasswordHashingExecutor;
+import com.hospital.queue.service.TokenService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login storm next to booking traffic. Login threads verify BCrypt hashes either
+ * directly on the calling thread (as servlet threads used to) or through the
+ * bounded PasswordHashingExecutor; compare the booking percentiles of both modes.
+ * Booking threads run TokenService.createToken against in-memory repositories.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class LoginStormBenchmark {
+
+    @Param({"direct", "pooled"})
+    private String mode;
+
+    private BCryptPasswordEncoder encoder;
+    private PasswordHashingExecutor hashingExecutor;
+    private String storedHash;
+    private TokenService tokenService;
+    private TokenRequest request;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(10);
+        hashingExecutor = new PasswordHashingExecutor(0, 64, 2, 10);
+        storedHash = encoder.encode("morning-shift");
+        tokenService = TokenServiceBenchmark.inMemoryTokenService(50);
+        request = new TokenRequest();
+        request.setUserId(TokenServiceBenchmark.USER_ID);
+        request.setDepartmentId(TokenServiceBenchmark.DEPARTMENT_ID);
+        request.setPriority(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        hashingExecutor.destroy();
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(16)
+    public boolean login() {
+        if ("direct".equals(mode)) {
+            return encoder.matches("morning-shift", storedHash);
+        }
+        try {
+            return hashingExecutor.execute(() -> encoder.matches("morning-shift", storedHash));
+        } catch (LoginThrottledException e) {
+            return false; // 429 to the client
+        }
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(4)
+    public TokenResponse booking() {
+        return tokenService.createToken(request, null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LoginStormBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,66 @@
+package com.hospital.queue.benchmark;
+
+import com.hospital.queue.entity.QueueAnalytics;
+import com.hospital.queue.entity.Token;
+import com.hospital.queue.repository.QueueAnalyticsRepository;
+import com.hospital.queue.service.QueueAnalyticsService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Running-average update of QueueAnalyticsService.recordTokenCompletion for one
+ * department hour that keeps accumulating completions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueueAnalyticsBenchmark {
+
+    private QueueAnalyticsService analyticsService;
+    private QueueAnalytics hour;
+    private Token token;
+
+    @Setup
+    public void setUp() {
+        hour = new QueueAnalytics();
+        analyticsService = new QueueAnalyticsService(InMemoryRepositories.stub(QueueAnalyticsRepository.class, Map.of(
+                "findByDepartmentIdAndDateAndHour", args -> Optional.of(hour),
+                "save", args -> args[0]
+        )));
+
+        token = new Token();
+        token.setId(1L);
+        token.setDepartmentId(3L);
+        token.setBookingTime(LocalDateTime.of(2026, 1, 5, 9, 15));
+        token.setActualWaitTime(23);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetHour() {
+        hour.setTokensCount(40);
+        hour.setAverageWaitTime(null);
+        hour.setAverageServiceTime(null);
+    }
+
+    @Benchmark
+    public QueueAnalytics recordCompletion() {
+        analyticsService.recordTokenCompletion(token, 11);
+        return hour;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QueueAnalyticsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,139 @@
+package com.hospital.queue.benchmark;
+
+import com.hospital.queue.metrics.QueueMetrics;
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.Doctor;
+import com.hospital.queue.entity.Token;
+import com.hospital.queue.journal.TokenJournal;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.repository.DoctorRepository;
+import com.hospital.queue.repository.TokenRepository;
+import com.hospital.queue.repository.UserNotificationRepository;
+import com.hospital.queue.service.DoctorDispatcher;
+import com.hospital.queue.service.EventStreamService;
+import com.hospital.queue.service.WebSocketService;
+import com.hospital.queue.websocket.NotificationOutbox;
+import com.hospital.queue.websocket.SubscriptionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocketService payload building for watched destinations (the broker channel is
+ * a no-op) and queue ordering in DoctorDispatcher: claiming the next patient out of
+ * a full department queue and handing it back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueueBroadcastBenchmark {
+
+    private static final long DEPARTMENT_ID = 3L;
+
+    @Param({"200"})
+    private int queueLength;
+
+    private WebSocketService webSocketService;
+    private DoctorDispatcher doctorDispatcher;
+    private Map<String, Object> stats;
+
+    @Setup
+    public void setUp() {
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        NotificationOutbox outbox = new NotificationOutbox(
+                InMemoryRepositories.stub(UserNotificationRepository.class, Map.of()), jsonMapper);
+        ReflectionTestUtils.setField(outbox, "capacity", 32);
+        ReflectionTestUtils.setField(outbox, "retentionMinutes", 120L);
+
+        SubscriptionRegistry registry = new SubscriptionRegistry();
+        subscribe(registry, "/topic/queue/" + DEPARTMENT_ID + "/status");
+        subscribe(registry, "/topic/queue/" + DEPARTMENT_ID + "/stats");
+        webSocketService = new WebSocketService(new SimpMessagingTemplate((message, timeout) -> true),
+                registry, outbox, new EventStreamService(jsonMapper, outbox),
+                new QueueMetrics(new SimpleMeterRegistry(), null));
+        stats = Map.of("queueLength", (long) queueLength, "averageWaitTime", 20.0);
+
+        List<Token> queue = new ArrayList<>();
+        for (int i = 0; i < queueLength; i++) {
+            Token token = new Token();
+            token.setId((long) i + 1);
+            token.setDepartmentId(DEPARTMENT_ID);
+            token.setDoctorId(i % 4 == 0 ? (long) (i % 3) + 1 : null);
+            token.setPriority(i % 7 == 0 ? 2 : 0);
+            token.setStatus(Token.TokenStatus.WAITING);
+            token.setBookingTime(LocalDateTime.now().minusSeconds(queueLength - i));
+            queue.add(token);
+        }
+        List<Doctor> doctors = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            Doctor doctor = new Doctor();
+            doctor.setId(id);
+            doctors.add(doctor);
+        }
+        Department department = new Department();
+        department.setId(DEPARTMENT_ID);
+
+        doctorDispatcher = new DoctorDispatcher(
+                InMemoryRepositories.stub(TokenRepository.class, Map.of(
+                        "findByDepartmentIdAndStatusInOrderByPriorityDescBookingTimeAsc", args -> queue)),
+                InMemoryRepositories.stub(DoctorRepository.class, Map.of(
+                        "findByDepartmentIdAndAvailableTrue", args -> doctors)),
+                InMemoryRepositories.stub(DepartmentRepository.class, Map.of(
+                        "findById", args -> Optional.of(department))),
+                new TokenJournal(null, false, "", 1, 1, false));
+        ReflectionTestUtils.setField(doctorDispatcher, "smoothing", 0.2);
+    }
+
+    @Benchmark
+    public void statusChange() {
+        webSocketService.broadcastStatusChange(DEPARTMENT_ID, 42L,
+                Token.TokenStatus.WAITING, Token.TokenStatus.IN_PROGRESS);
+    }
+
+    @Benchmark
+    public void queueStats() {
+        webSocketService.broadcastQueueStats(DEPARTMENT_ID, stats);
+    }
+
+    @Benchmark
+    public Long claimAndRelease() {
+        Long doctorId = doctorDispatcher.pickDoctor(DEPARTMENT_ID);
+        Long tokenId = doctorDispatcher.claimNext(DEPARTMENT_ID, doctorId);
+        doctorDispatcher.release(DEPARTMENT_ID, tokenId);
+        return tokenId;
+    }
+
+    private static void subscribe(SubscriptionRegistry registry, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId("bench-" + destination.hashCode());
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(destination);
+        registry.onSubscribe(new SessionSubscribeEvent(registry,
+                MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders())));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QueueBroadcastBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
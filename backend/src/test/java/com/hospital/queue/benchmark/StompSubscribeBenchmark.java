@@ -0,0 +1,87 @@
+package com.hospital.queue.benchmark;
+
+import com.hospital.queue.metrics.QueueMetrics;
+import com.hospital.queue.entity.User;
+import com.hospital.queue.security.JwtTokenProvider;
+import com.hospital.queue.security.PrincipalCache;
+import com.hospital.queue.security.UserPrincipal;
+import com.hospital.queue.websocket.StompAuthChannelInterceptor;
+import com.hospital.queue.websocket.SubscriptionAuthorizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of SUBSCRIBE authorization through StompAuthChannelInterceptor
+ * for a session whose principal was pinned at CONNECT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StompSubscribeBenchmark {
+
+    private StompAuthChannelInterceptor interceptor;
+    private Message<byte[]> ownQueueSubscribe;
+    private Message<byte[]> departmentSubscribe;
+
+    @Setup
+    public void setUp() {
+        UserPrincipal user = new UserPrincipal(42L, "patient42", null, User.Role.USER, 1L, true);
+        QueueMetrics metrics = new QueueMetrics(new SimpleMeterRegistry(), null);
+        JwtTokenProvider tokenProvider = new JwtTokenProvider(
+                "HOSPITAL_QUEUE_9F3A2B8D7C1E5A6F9D3C2B1A", 86_400_000L, 1000, metrics);
+        PrincipalCache principalCache = new PrincipalCache(username -> user, Duration.ofMinutes(5), 1000);
+        interceptor = new StompAuthChannelInterceptor(
+                tokenProvider,
+                principalCache,
+                new SubscriptionAuthorizer(null),
+                metrics
+        );
+
+        UsernamePasswordAuthenticationToken sessionUser =
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        ownQueueSubscribe = subscribe("/queue/user/42/call", sessionUser);
+        departmentSubscribe = subscribe("/topic/queue/7", sessionUser);
+    }
+
+    @Benchmark
+    public Object subscribeOwnQueue() {
+        return interceptor.preSend(ownQueueSubscribe, null);
+    }
+
+    @Benchmark
+    public Object subscribeDepartmentBoard() {
+        return interceptor.preSend(departmentSubscribe, null);
+    }
+
+    private static Message<byte[]> subscribe(String destination, UsernamePasswordAuthenticationToken user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setDestination(destination);
+        accessor.setSessionId("session-1");
+        accessor.setSubscriptionId("sub-0");
+        accessor.setUser(user);
+        accessor.setSessionAttributes(new HashMap<>());
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StompSubscribeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
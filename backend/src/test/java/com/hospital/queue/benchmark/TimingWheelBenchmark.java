@@ -0,0 +1,69 @@
+package com.hospital.queue.benchmark;
+
+import com.hospital.queue.expiry.TimingWheel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token deadline upkeep with a large backlog of pending timers: one 1 s wheel tick
+ * (re-arming whatever fired, so the backlog stays constant), and a schedule plus
+ * cancel as done for every token status change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimingWheelBenchmark {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final long HORIZON_MILLIS = Duration.ofHours(12).toMillis();
+
+    @Param({"500000"})
+    private int pending;
+
+    private TimingWheel<Long> wheel;
+    private SplittableRandom random;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        random = new SplittableRandom(42);
+        now = 0;
+        wheel = new TimingWheel<>(TICK_MILLIS, now);
+        for (long tokenId = 0; tokenId < pending; tokenId++) {
+            wheel.schedule(now + random.nextLong(HORIZON_MILLIS), tokenId);
+        }
+    }
+
+    @Benchmark
+    public int tick() {
+        now += TICK_MILLIS;
+        List<Long> expired = wheel.advance(now);
+        for (Long tokenId : expired) {
+            wheel.schedule(now + random.nextLong(HORIZON_MILLIS), tokenId);
+        }
+        return expired.size();
+    }
+
+    @Benchmark
+    public int scheduleAndCancel() {
+        TimingWheel.Timer<Long> timer = wheel.schedule(now + random.nextLong(HORIZON_MILLIS), -1L);
+        wheel.cancel(timer);
+        return wheel.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TimingWheelBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
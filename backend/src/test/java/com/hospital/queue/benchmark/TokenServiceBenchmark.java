@@ -0,0 +1,167 @@
+package com.hospital.queue.benchmark;
+
+import com.hospital.queue.metrics.QueueMetrics;
+import com.hospital.queue.dto.TokenRequest;
+import com.hospital.queue.dto.TokenResponse;
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.Token;
+import com.hospital.queue.entity.User;
+import com.hospital.queue.journal.TokenJournal;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.repository.DoctorRepository;
+import com.hospital.queue.repository.TokenRepository;
+import com.hospital.queue.repository.UserNotificationRepository;
+import com.hospital.queue.repository.UserRepository;
+import com.hospital.queue.service.*;
+import com.hospital.queue.websocket.NotificationOutbox;
+import com.hospital.queue.websocket.SubscriptionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TokenService hot paths against in-memory repositories: mapping a department queue
+ * to responses (mapToResponse per row), booking a token end to end, and token number
+ * generation on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenServiceBenchmark {
+
+    static final long DEPARTMENT_ID = 3L;
+    static final long USER_ID = 7L;
+
+    @Param({"50"})
+    private int queueLength;
+
+    private TokenService tokenService;
+    private MethodHandle generateTokenNumber;
+    private TokenRequest request;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        tokenService = inMemoryTokenService(queueLength);
+
+        generateTokenNumber = MethodHandles.privateLookupIn(TokenService.class, MethodHandles.lookup())
+                .findVirtual(TokenService.class, "generateTokenNumber", MethodType.methodType(String.class, Long.class))
+                .bindTo(tokenService);
+        request = new TokenRequest();
+        request.setUserId(USER_ID);
+        request.setDepartmentId(DEPARTMENT_ID);
+        request.setPriority(0);
+    }
+
+    /**
+     * TokenService over in-memory repositories, with a department queue of the given length;
+     * shared with benchmarks that need real booking work next to something else
+     */
+    static TokenService inMemoryTokenService(int queueLength) {
+        User user = new User();
+        user.setId(USER_ID);
+        user.setFullName("Patient Seven");
+        Department department = new Department();
+        department.setId(DEPARTMENT_ID);
+        department.setName("Cardiology");
+        department.setAverageServiceTime(12);
+
+        List<Token> queue = new ArrayList<>();
+        for (int i = 0; i < queueLength; i++) {
+            Token token = new Token();
+            token.setId((long) i + 1);
+            token.setUserId(user.getId());
+            token.setDepartmentId(DEPARTMENT_ID);
+            token.setTokenNumber(String.format("D3-20260101070000-%03d", i));
+            token.setPriority(i % 5 == 0 ? 1 : 0);
+            token.setStatus(Token.TokenStatus.WAITING);
+            token.setBookingTime(LocalDateTime.now().minusMinutes(queueLength - i));
+            token.setEstimatedWaitTime(25);
+            queue.add(token);
+        }
+        AtomicLong ids = new AtomicLong(queueLength);
+
+        TokenRepository tokenRepository = InMemoryRepositories.stub(TokenRepository.class, Map.of(
+                "findByDepartmentIdAndStatusInOrderByPriorityDescBookingTimeAsc", args -> queue,
+                "countByDepartmentIdAndStatus", args -> (long) queue.size(),
+                "getAverageWaitTimeByDepartment", args -> 20.0,
+                "save", args -> {
+                    Token token = (Token) args[0];
+                    if (token.getId() == null) {
+                        token.setId(ids.incrementAndGet());
+                    }
+                    return token;
+                }
+        ));
+        UserRepository userRepository = InMemoryRepositories.stub(UserRepository.class, Map.of(
+                "findById", args -> Optional.of(user)
+        ));
+        DepartmentRepository departmentRepository = InMemoryRepositories.stub(DepartmentRepository.class, Map.of(
+                "findById", args -> Optional.of(department)
+        ));
+
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        NotificationOutbox outbox = new NotificationOutbox(
+                InMemoryRepositories.stub(UserNotificationRepository.class, Map.of()), jsonMapper);
+        ReflectionTestUtils.setField(outbox, "capacity", 32);
+        ReflectionTestUtils.setField(outbox, "retentionMinutes", 120L);
+        EventStreamService eventStreamService = new EventStreamService(jsonMapper, outbox);
+        QueueMetrics metrics = new QueueMetrics(new SimpleMeterRegistry(), null);
+        WebSocketService webSocketService = new WebSocketService(
+                new SimpMessagingTemplate((message, timeout) -> true),
+                new SubscriptionRegistry(), outbox, eventStreamService, metrics);
+
+        MLPredictionService mlPredictionService = new MLPredictionService(null, metrics) {
+            @Override
+            public Integer predictWaitTime(Long departmentId) {
+                return 25;
+            }
+        };
+        DoctorRepository doctorRepository = InMemoryRepositories.stub(DoctorRepository.class, Map.of());
+        DoctorDispatcher doctorDispatcher = new DoctorDispatcher(tokenRepository, doctorRepository, departmentRepository,
+                new TokenJournal(tokenRepository, false, "", 1, 1, false));
+
+        return new TokenService(tokenRepository, userRepository, departmentRepository, doctorRepository,
+                mlPredictionService, webSocketService, new QueueAnalyticsService(null),
+                doctorDispatcher, event -> { }, metrics);
+    }
+
+    @Benchmark
+    public List<TokenResponse> departmentQueue() {
+        return tokenService.getDepartmentQueue(DEPARTMENT_ID);
+    }
+
+    @Benchmark
+    public TokenResponse createToken() {
+        return tokenService.createToken(request, null);
+    }
+
+    @Benchmark
+    public String generateTokenNumber() throws Throwable {
+        return (String) generateTokenNumber.invokeExact(Long.valueOf(DEPARTMENT_ID));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,82 @@
+package com.hospital.queue.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTests {
+
+    private static final int VIRTUAL_NODES = 64;
+    private static final int HOSPITALS = 10_000;
+
+    @Test
+    void placementDependsOnlyOnTheMemberSet() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), VIRTUAL_NODES);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("node-c", "node-a", "node-b"), VIRTUAL_NODES);
+
+        for (long hospital = 1; hospital <= HOSPITALS; hospital++) {
+            assertEquals(ring.ownerOf(hospital), reordered.ownerOf(hospital));
+            assertEquals(ring.ownerOf(hospital), ring.ownerOf(hospital));
+        }
+    }
+
+    @Test
+    void everyNodeOwnsAShare() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), VIRTUAL_NODES);
+
+        Map<String, Integer> owned = owners(ring).values().stream()
+                .collect(HashMap::new, (counts, node) -> counts.merge(node, 1, Integer::sum), Map::putAll);
+
+        assertEquals(ring.getNodes(), owned.keySet());
+        owned.values().forEach(count -> assertTrue(count > HOSPITALS / 6, "share " + count));
+    }
+
+    @Test
+    void joiningNodeOnlyTakesHospitalsForItself() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), VIRTUAL_NODES);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("node-a", "node-b", "node-c", "node-d"), VIRTUAL_NODES);
+
+        int moved = 0;
+        for (long hospital = 1; hospital <= HOSPITALS; hospital++) {
+            String owner = after.ownerOf(hospital);
+            if (!owner.equals(before.ownerOf(hospital))) {
+                assertEquals("node-d", owner);
+                moved++;
+            }
+        }
+        // About a quarter of the hospitals move, not a reshuffle
+        assertTrue(moved > HOSPITALS / 8 && moved < HOSPITALS * 3 / 8, "moved " + moved);
+    }
+
+    @Test
+    void leavingNodeOnlyGivesUpItsOwnHospitals() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), VIRTUAL_NODES);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("node-a", "node-c"), VIRTUAL_NODES);
+
+        for (long hospital = 1; hospital <= HOSPITALS; hospital++) {
+            String owner = before.ownerOf(hospital);
+            if (!owner.equals("node-b")) {
+                assertEquals(owner, after.ownerOf(hospital));
+            } else {
+                assertNotEquals("node-b", after.ownerOf(hospital));
+            }
+        }
+    }
+
+    @Test
+    void emptyRingHasNoOwner() {
+        assertNull(new ConsistentHashRing(List.of(), VIRTUAL_NODES).ownerOf(1L));
+    }
+
+    private static Map<Long, String> owners(ConsistentHashRing ring) {
+        Map<Long, String> owners = new HashMap<>();
+        for (long hospital = 1; hospital <= HOSPITALS; hospital++) {
+            owners.put(hospital, ring.ownerOf(hospital));
+        }
+        return owners;
+    }
+}
@@ -0,0 +1,224 @@
+package com.hospital.queue.cluster;
+
+import com.hospital.queue.HospitalQueueApplication;
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.Hospital;
+import com.hospital.queue.entity.User;
+import com.hospital.queue.event.TokenEvent;
+import com.hospital.queue.loadtest.StubPredictionServer;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.repository.HospitalRepository;
+import com.hospital.queue.repository.UserRepository;
+import com.hospital.queue.security.JwtTokenProvider;
+import com.hospital.queue.security.UserPrincipal;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two nodes of one cluster sharing an in-memory database. Which node handled a booking
+ * is told by where its token event was published, as queue state lives with the owner.
+ */
+class ShardRouterTests {
+
+    private static final String DATABASE_URL =
+            "jdbc:h2:mem:shard-routing;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=HOUR,DATE;DB_CLOSE_DELAY=-1";
+
+    private static StubPredictionServer predictionServer;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static final AtomicInteger eventsOnA = new AtomicInteger();
+    private static final AtomicInteger eventsOnB = new AtomicInteger();
+    private static final HttpClient http = HttpClient.newHttpClient();
+
+    private static Long userId;
+    private static User burstUser;
+    private static Long departmentOfA;
+    private static Long departmentOfB;
+
+    @BeforeAll
+    static void startCluster() throws IOException {
+        predictionServer = new StubPredictionServer(0, 20);
+        nodeA = start("node-a", freePort());
+        nodeB = start("node-b", freePort());
+        nodeA.getBean(ClusterMembershipService.class).heartbeat();
+        nodeB.getBean(ClusterMembershipService.class).heartbeat();
+        count(nodeA, eventsOnA);
+        count(nodeB, eventsOnB);
+
+        User user = new User();
+        user.setUsername("patient");
+        user.setEmail("patient@test.local");
+        user.setPassword("unused");
+        user.setFullName("Patient");
+        user.setRole(User.Role.USER);
+        userId = nodeA.getBean(UserRepository.class).save(user).getId();
+
+        burstUser = new User();
+        burstUser.setUsername("burst");
+        burstUser.setEmail("burst@test.local");
+        burstUser.setPassword("unused");
+        burstUser.setFullName("Burst");
+        burstUser.setRole(User.Role.USER);
+        burstUser = nodeA.getBean(UserRepository.class).save(burstUser);
+
+        ClusterMembershipService membership = nodeA.getBean(ClusterMembershipService.class);
+        while (departmentOfA == null || departmentOfB == null) {
+            Hospital hospital = new Hospital();
+            hospital.setName("Hospital");
+            hospital = nodeA.getBean(HospitalRepository.class).save(hospital);
+            Department department = new Department();
+            department.setHospitalId(hospital.getId());
+            department.setName("General");
+            Long departmentId = nodeA.getBean(DepartmentRepository.class).save(department).getId();
+            if (membership.isLocal(hospital.getId())) {
+                departmentOfA = departmentOfA != null ? departmentOfA : departmentId;
+            } else {
+                departmentOfB = departmentOfB != null ? departmentOfB : departmentId;
+            }
+        }
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        nodeB.close();
+        nodeA.close();
+        predictionServer.close();
+    }
+
+    @BeforeEach
+    void resetCounts() {
+        eventsOnA.set(0);
+        eventsOnB.set(0);
+    }
+
+    @Test
+    void nodesAgreeOnOwnership() {
+        ClusterMembershipService a = nodeA.getBean(ClusterMembershipService.class);
+        ClusterMembershipService b = nodeB.getBean(ClusterMembershipService.class);
+
+        assertEquals(a.getMembers().keySet(), b.getMembers().keySet());
+        for (long hospital = 1; hospital <= 100; hospital++) {
+            assertEquals(a.ownerOf(hospital), b.ownerOf(hospital));
+        }
+    }
+
+    @Test
+    void bookingForOwnHospitalIsHandledLocally() throws Exception {
+        HttpResponse<String> response = book(nodeA, departmentOfA, null);
+
+        assertEquals(200, response.statusCode());
+        assertEquals(1, eventsOnA.get());
+        assertEquals(0, eventsOnB.get());
+    }
+
+    @Test
+    void bookingForOtherHospitalIsForwardedToItsOwner() throws Exception {
+        HttpResponse<String> response = book(nodeA, departmentOfB, null);
+
+        assertEquals(200, response.statusCode(), response.body());
+        assertEquals(0, eventsOnA.get());
+        assertEquals(1, eventsOnB.get());
+    }
+
+    @Test
+    void forwardedRequestIsNeverForwardedAgain() throws Exception {
+        // Node A thinks B owns the hospital; a request B already forwarded stays on A
+        HttpResponse<String> response = book(nodeA, departmentOfB, "node-b");
+
+        assertEquals(200, response.statusCode(), response.body());
+        assertEquals(1, eventsOnA.get());
+        assertEquals(0, eventsOnB.get());
+    }
+
+    @Test
+    void ownerRejectionIsRelayedWithItsBody() throws Exception {
+        // Its own user, so the other tests' anonymous allowance on the owner is untouched
+        UserPrincipal principal = UserPrincipal.create(burstUser);
+        String jwt = nodeA.getBean(JwtTokenProvider.class).generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        HttpResponse<String> response;
+        do {
+            response = http.send(bookingRequest(nodeA, departmentOfB, null)
+                    .header("Authorization", "Bearer " + jwt).build(), HttpResponse.BodyHandlers.ofString());
+        } while (response.statusCode() == 200);
+
+        assertEquals(429, response.statusCode());
+        assertEquals("Too many bookings, please wait", response.body());
+        assertTrue(response.headers().firstValue("Retry-After").isPresent());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/plain"));
+    }
+
+    private static HttpResponse<String> book(ConfigurableApplicationContext node, Long departmentId,
+                                             String forwardedBy) throws Exception {
+        return http.send(bookingRequest(node, departmentId, forwardedBy).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpRequest.Builder bookingRequest(ConfigurableApplicationContext node, Long departmentId,
+                                                      String forwardedBy) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl(node) + "/api/tokens"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"userId\":" + userId + ",\"departmentId\":" + departmentId + "}"));
+        if (forwardedBy != null) {
+            request.header(ShardRouter.FORWARDED_HEADER, forwardedBy);
+        }
+        return request;
+    }
+
+    private static ConfigurableApplicationContext start(String nodeId, int port) throws IOException {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(HospitalQueueApplication.class).run(
+                "--server.port=" + port,
+                "--spring.datasource.url=" + DATABASE_URL,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=update", // the second node must not drop the first one's schema
+                "--spring.jpa.properties.hibernate.dialect=",
+                "--spring.jpa.show-sql=false",
+                "--ml.service.url=" + predictionServer.getUrl(),
+                "--journal.directory=" + Files.createTempDirectory("journal-" + nodeId),
+                "--cluster.enabled=true",
+                "--cluster.node-id=" + nodeId,
+                "--cluster.advertised-url=http://127.0.0.1:" + port,
+                "--cluster.heartbeat-interval-ms=3600000",
+                "--logging.level.root=WARN"
+        );
+    }
+
+    private static void count(ConfigurableApplicationContext node, AtomicInteger events) {
+        node.addApplicationListener(ApplicationListener.forPayload(payload -> {
+            if (payload instanceof TokenEvent) {
+                events.incrementAndGet();
+            }
+        }));
+    }
+
+    private static String baseUrl(ConfigurableApplicationContext node) {
+        return "http://127.0.0.1:" + node.getEnvironment().getProperty("local.server.port");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.hospital.queue.datasource;
+
+import com.hospital.queue.config.ReadReplicaConfig;
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.QueueAnalytics;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.repository.QueueAnalyticsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two independent in-memory databases stand in for the primary and its replica;
+ * "replication" is copying the schema and stamping the heartbeat row by hand, so
+ * each test can tell from the data which database answered.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=" + ReadWriteRoutingTests.PRIMARY_URL,
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.replica.url=" + ReadWriteRoutingTests.REPLICA_URL,
+        "spring.datasource.replica.max-lag-ms=2000",
+        "spring.datasource.replica.heartbeat-interval-ms=3600000",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ReadReplicaConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReadWriteRoutingTests {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=HOUR,DATE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=HOUR,DATE;DB_CLOSE_DELAY=-1";
+
+    private static final Long DEPARTMENT_ID = 7L;
+
+    @Autowired
+    private QueueAnalyticsRepository analyticsRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void replicateSchema() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        replica.execute("DROP ALL OBJECTS");
+        primary.queryForList("SCRIPT NODATA", String.class).forEach(replica::execute);
+        primary.update("DELETE FROM departments");
+    }
+
+    @Test
+    void replicaReadsAreServedByTheReplicaWhileItIsCaughtUp() {
+        insertAnalytics(replica);
+        replicateHeartbeat(System.currentTimeMillis());
+        lagMonitor.checkLag();
+
+        assertTrue(lagMonitor.isReplicaUsable());
+        assertEquals(1, historyRows().size());
+    }
+
+    @Test
+    void laggingReplicaFallsBackToThePrimary() {
+        insertAnalytics(replica);
+        replicateHeartbeat(System.currentTimeMillis() - 10_000);
+        lagMonitor.checkLag();
+
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertTrue(lagMonitor.getLagMillis() >= 10_000);
+        assertTrue(historyRows().isEmpty());
+    }
+
+    @Test
+    void missingHeartbeatCountsAsLagging() {
+        lagMonitor.checkLag();
+
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertEquals(-1, lagMonitor.getLagMillis());
+    }
+
+    @Test
+    void writesAndPlainReadsStayOnThePrimary() {
+        replicateHeartbeat(System.currentTimeMillis());
+        lagMonitor.checkLag();
+        assertTrue(lagMonitor.isReplicaUsable());
+
+        Department department = new Department();
+        department.setHospitalId(1L);
+        department.setName("Cardiology");
+        Long id = departmentRepository.save(department).getId();
+
+        assertEquals(1, primary.queryForObject("SELECT COUNT(*) FROM departments", Integer.class));
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM departments", Integer.class));
+        assertTrue(departmentRepository.findById(id).isPresent());
+    }
+
+    private List<QueueAnalytics> historyRows() {
+        LocalDate today = LocalDate.now();
+        return analyticsRepository.findByDepartmentIdAndDateBetween(DEPARTMENT_ID, today.minusDays(1), today);
+    }
+
+    private static void insertAnalytics(JdbcTemplate database) {
+        database.update("INSERT INTO queue_analytics (department_id, date, hour, day_of_week, tokens_count) "
+                + "VALUES (?, ?, 9, 1, 12)", DEPARTMENT_ID, LocalDate.now());
+    }
+
+    private void replicateHeartbeat(long beatMillis) {
+        replica.update("DELETE FROM replication_heartbeat");
+        replica.update("INSERT INTO replication_heartbeat (id, beat_millis) VALUES (1, ?)", beatMillis);
+    }
+}
@@ -0,0 +1,104 @@
+package com.hospital.queue.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTests {
+
+    private static final long TICK = 1_000;
+    private static final long START = 123_456 * TICK; // not aligned to any level boundary
+    private static final long RANGE_TICKS = 1L << 24; // 64^4
+
+    @Test
+    void firesAtTheDeadlineAndNotBefore() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        wheel.schedule(START + 5 * TICK, "token");
+
+        assertEquals(List.of(), wheel.advance(START + 5 * TICK - 1));
+        assertEquals(List.of("token"), wheel.advance(START + 5 * TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void timersCascadeAcrossLevelBoundariesToTheirExactTick() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, START);
+        long startTick = START / TICK;
+        long[] delays = {1, 63, 64, 65, 127, 4_095, 4_096, 4_097, 8_191, 262_143, 262_144, 262_145};
+        for (long delay : delays) {
+            wheel.schedule((startTick + delay) * TICK, startTick + delay);
+        }
+
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long tick = startTick + 1; tick <= startTick + 262_145; tick++) {
+            for (Long deadline : wheel.advance(tick * TICK)) {
+                firedAt.put(deadline, tick);
+            }
+        }
+
+        assertEquals(delays.length, firedAt.size());
+        firedAt.forEach((deadline, tick) -> assertEquals(deadline, tick));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlineBeyondTheRangeIsClampedAndStillFiresOnTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        long deadline = START + (RANGE_TICKS + 1_000) * TICK;
+        wheel.schedule(deadline, "far");
+
+        assertEquals(List.of(), wheel.advance(START + (RANGE_TICKS - 1) * TICK));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of(), wheel.advance(deadline - TICK));
+        assertEquals(List.of("far"), wheel.advance(deadline));
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        wheel.schedule(START - 10 * TICK, "late");
+
+        assertEquals(List.of("late"), wheel.advance(START));
+    }
+
+    @Test
+    void cancelledOverdueTimerDoesNotFire() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        TimingWheel.Timer<String> timer = wheel.schedule(START - TICK, "late");
+        wheel.schedule(START - TICK, "kept");
+
+        wheel.cancel(timer);
+        wheel.cancel(timer);
+
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("kept"), wheel.advance(START));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledTimerInAHigherLevelDoesNotFire() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        TimingWheel.Timer<String> cancelled = wheel.schedule(START + 5_000 * TICK, "cancelled");
+        wheel.schedule(START + 5_000 * TICK, "kept");
+
+        wheel.cancel(cancelled);
+
+        assertEquals(List.of("kept"), wheel.advance(START + 5_000 * TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void firedTimerCannotBeCancelled() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        TimingWheel.Timer<String> timer = wheel.schedule(START + TICK, "token");
+        wheel.advance(START + TICK);
+
+        wheel.cancel(timer);
+
+        assertEquals(0, wheel.size());
+    }
+}
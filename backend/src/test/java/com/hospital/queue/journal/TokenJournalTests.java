@@ -0,0 +1,377 @@
+package com.hospital.queue.journal;
+
+import com.hospital.queue.benchmark.InMemoryRepositories;
+import com.hospital.queue.entity.Token;
+import com.hospital.queue.event.TokenEvent;
+import com.hospital.queue.repository.TokenRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenJournalTests {
+
+    private static final long DEPARTMENT = 1;
+    private static final long OTHER_DEPARTMENT = 2;
+    private static final long START = 1_700_000_000_000L;
+    // Records per segment at the smallest configurable segment size (1 MB)
+    private static final int SEGMENT_RECORDS = (1 << 20) / JournalCodec.RECORD_SIZE;
+
+    @TempDir
+    Path directory;
+
+    // The tokens table: token id -> token
+    private final Map<Long, Token> table = new HashMap<>();
+    private final List<TokenJournal> journals = new ArrayList<>();
+    private int rebuilds;
+
+    @AfterEach
+    void closeJournals() throws IOException {
+        for (TokenJournal journal : journals) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void codecRoundTripsEveryField() {
+        ByteBuffer buffer = ByteBuffer.allocate(JournalCodec.RECORD_SIZE);
+        LocalDateTime booked = LocalDateTime.of(2026, 3, 1, 9, 30, 15, 123_456_000);
+        TokenEvent event = new TokenEvent(TokenEvent.Type.STATUS_CHANGED, 7L, DEPARTMENT, 3L, 9L, 2, booked,
+                Token.TokenStatus.WAITING, Token.TokenStatus.COMPLETED, 25,
+                booked.plusMinutes(25), booked.plusMinutes(40), START);
+        JournalCodec.write(buffer, 0, 42, event);
+
+        assertEquals(42, JournalCodec.sequenceAt(buffer, 0));
+        assertEquals(new JournalEntry(42, event), JournalCodec.read(buffer, 0));
+
+        TokenEvent sparse = new TokenEvent(TokenEvent.Type.CREATED, 8L, DEPARTMENT, null, null, null, null,
+                null, Token.TokenStatus.WAITING, null, null, null, START);
+        JournalCodec.write(buffer, 0, 43, sparse);
+        assertEquals(sparse, JournalCodec.read(buffer, 0).event());
+    }
+
+    @Test
+    void codecDetectsTornAndEmptyRecords() {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * JournalCodec.RECORD_SIZE);
+        JournalCodec.write(buffer, 0, 1, created(1, DEPARTMENT, START));
+        buffer.put(30, (byte) (buffer.get(30) ^ 1));
+
+        assertEquals(0, JournalCodec.sequenceAt(buffer, 0));
+        assertEquals(0, JournalCodec.sequenceAt(buffer, JournalCodec.RECORD_SIZE));
+    }
+
+    @Test
+    void recoveryStopsAtATornTailAndOverwritesIt() throws IOException {
+        TokenJournal journal = open();
+        for (long id = 1; id <= 3; id++) {
+            append(journal, created(id, DEPARTMENT, START + id));
+        }
+        journal.flush();
+        // Crash while the third record was half written; the table never got token 3
+        table.remove(3L);
+        corrupt(onlySegment(), 2 * JournalCodec.RECORD_SIZE + 20);
+
+        TokenJournal recovered = open();
+        assertEquals(2, recovered.getLastSequence());
+        assertEquals(List.of(1L, 2L), activeIds(recovered, DEPARTMENT));
+
+        append(recovered, created(4, DEPARTMENT, START + 4));
+        assertEquals(3, recovered.getLastSequence());
+        assertEquals(List.of(1L, 2L, 4L), tokenIdsOf(recovered));
+    }
+
+    @Test
+    void fullSegmentRollsToANewFile() throws IOException {
+        TokenJournal journal = open();
+        for (long id = 1; id <= SEGMENT_RECORDS + 5; id++) {
+            append(journal, created(id, DEPARTMENT, START + id));
+        }
+
+        assertEquals(2, segmentFiles().size());
+        assertTrue(Files.exists(directory.resolve(String.format("journal-%020d.log", SEGMENT_RECORDS + 1))));
+        List<Long> sequences = new ArrayList<>();
+        journal.replay(1, entry -> sequences.add(entry.sequence()));
+        assertEquals(SEGMENT_RECORDS + 5, sequences.size());
+        for (int i = 0; i < sequences.size(); i++) {
+            assertEquals(i + 1, sequences.get(i));
+        }
+
+        journal.flush();
+        TokenJournal recovered = open();
+        assertEquals(SEGMENT_RECORDS + 5, recovered.getLastSequence());
+    }
+
+    @Test
+    void recoveryLoadsTheSnapshotAndReplaysOnlyTheTail() throws IOException {
+        TokenJournal journal = open();
+        append(journal, created(1, DEPARTMENT, START));
+        append(journal, created(2, DEPARTMENT, START + 1));
+        append(journal, created(3, OTHER_DEPARTMENT, START + 2));
+        journal.snapshot();
+        append(journal, changed(1, Token.TokenStatus.WAITING, Token.TokenStatus.IN_PROGRESS, START + 3));
+        append(journal, changed(2, Token.TokenStatus.WAITING, Token.TokenStatus.CANCELLED, START + 4));
+        append(journal, created(4, DEPARTMENT, START + 5));
+        journal.flush();
+        // No snapshot at shutdown: the last three events exist only in the journal
+
+        int rebuildsBefore = rebuilds;
+        TokenJournal recovered = open();
+        assertEquals(rebuildsBefore, rebuilds);
+        assertEquals(6, recovered.getLastSequence());
+        assertEquals(List.of(1L, 4L), activeIds(recovered, DEPARTMENT));
+        assertEquals(Token.TokenStatus.IN_PROGRESS, recovered.activeTokens(DEPARTMENT).orElseThrow().get(0).status());
+        assertEquals(List.of(3L), activeIds(recovered, OTHER_DEPARTMENT));
+    }
+
+    @Test
+    void recoveryRebuildsFromTheTableWhenCountsDisagree() throws IOException {
+        TokenJournal journal = open();
+        append(journal, created(1, DEPARTMENT, START));
+        append(journal, created(2, DEPARTMENT, START + 1));
+        close(journal);
+        // Same total, but a status change committed without reaching the journal
+        table.get(2L).setStatus(Token.TokenStatus.IN_PROGRESS);
+
+        int rebuildsBefore = rebuilds;
+        TokenJournal recovered = open();
+        assertEquals(rebuildsBefore + 1, rebuilds);
+        Map<Long, Token.TokenStatus> statuses = new HashMap<>();
+        recovered.activeTokens(DEPARTMENT).orElseThrow().forEach(token -> statuses.put(token.tokenId(), token.status()));
+        assertEquals(Map.of(1L, Token.TokenStatus.WAITING, 2L, Token.TokenStatus.IN_PROGRESS), statuses);
+        // The rebuilt state is snapshotted, so the next start needs no rebuild
+        close(recovered);
+        open();
+        assertEquals(rebuildsBefore + 1, rebuilds);
+    }
+
+    @Test
+    void snapshotAheadOfTheJournalIsDeleted() throws IOException {
+        TokenJournal journal = open();
+        append(journal, created(1, DEPARTMENT, START));
+        append(journal, created(2, DEPARTMENT, START + 1));
+        close(journal);
+        // The segments were lost, the snapshot at sequence 2 survived
+        assertEquals(List.of(snapshotName(0), snapshotName(2)), snapshotNames());
+        for (Path segment : segmentFiles()) {
+            Files.delete(segment);
+        }
+
+        int rebuildsBefore = rebuilds;
+        TokenJournal recovered = open();
+        assertEquals(rebuildsBefore + 1, rebuilds);
+        assertEquals(0, recovered.getLastSequence());
+        assertEquals(List.of(1L, 2L), activeIds(recovered, DEPARTMENT));
+        assertEquals(List.of(snapshotName(0)), snapshotNames());
+    }
+
+    @Test
+    void historyFollowsATokenAcrossSegments() throws IOException {
+        TokenJournal journal = open();
+        append(journal, created(1, DEPARTMENT, START));
+        for (long id = 2; id <= SEGMENT_RECORDS + 1; id++) {
+            append(journal, created(id, OTHER_DEPARTMENT, START + id));
+        }
+        append(journal, changed(1, Token.TokenStatus.WAITING, Token.TokenStatus.IN_PROGRESS, START + SEGMENT_RECORDS + 2));
+        append(journal, changed(1, Token.TokenStatus.IN_PROGRESS, Token.TokenStatus.COMPLETED, START + SEGMENT_RECORDS + 3));
+
+        List<JournalEntry> history = journal.history(1L);
+        assertEquals(List.of(1L, SEGMENT_RECORDS + 2L, SEGMENT_RECORDS + 3L),
+                history.stream().map(JournalEntry::sequence).toList());
+        assertEquals(TokenEvent.Type.CREATED, history.get(0).event().type());
+        assertEquals(Token.TokenStatus.COMPLETED, history.get(2).event().newStatus());
+        assertEquals(List.of(), journal.history(SEGMENT_RECORDS + 100L));
+    }
+
+    @Test
+    void eventsAreBoundedByTimeAcrossSegments() throws IOException {
+        TokenJournal journal = open();
+        for (long id = 1; id <= SEGMENT_RECORDS; id++) {
+            append(journal, created(id, DEPARTMENT, START + id));
+        }
+        // Stamped before it committed, so it lands in the next segment with an earlier time
+        append(journal, created(SEGMENT_RECORDS + 1, DEPARTMENT, START + 10));
+        for (long id = SEGMENT_RECORDS + 2; id <= SEGMENT_RECORDS + 10; id++) {
+            append(journal, created(id, DEPARTMENT, START + 100_000 + id));
+        }
+        append(journal, created(SEGMENT_RECORDS + 11, OTHER_DEPARTMENT, START + 200_000));
+
+        List<JournalEntry> late = journal.events(DEPARTMENT, Instant.ofEpochMilli(START + 100_000),
+                Instant.ofEpochMilli(START + 300_000));
+        assertEquals(9, late.size());
+        assertEquals(SEGMENT_RECORDS + 2L, late.get(0).event().tokenId());
+
+        List<JournalEntry> early = journal.events(DEPARTMENT, Instant.ofEpochMilli(START + 5),
+                Instant.ofEpochMilli(START + 11));
+        assertEquals(List.of(5L, 6L, 7L, 8L, 9L, 10L, SEGMENT_RECORDS + 1L),
+                early.stream().map(entry -> entry.event().tokenId()).toList());
+    }
+
+    @Test
+    void retentionDeletesOldSegmentsNoLongerNeededForReplay() throws IOException {
+        TokenJournal journal = open();
+        for (long id = 1; id <= SEGMENT_RECORDS + 1; id++) {
+            append(journal, created(id, DEPARTMENT, START + id));
+            append(journal, changed(id, Token.TokenStatus.WAITING, Token.TokenStatus.COMPLETED, START + id));
+        }
+        List<Path> segments = segmentFiles();
+        assertEquals(3, segments.size());
+        journal.snapshot();
+
+        // Young segments are kept whatever the snapshots
+        append(journal, created(3L * SEGMENT_RECORDS, DEPARTMENT, START));
+        journal.snapshot();
+        assertEquals(3, segmentFiles().size());
+        assertEquals(2, snapshotNames().size());
+
+        FileTime old = FileTime.from(Instant.now().minus(Duration.ofDays(2)));
+        for (Path segment : segments) {
+            Files.setLastModifiedTime(segment, old);
+        }
+        append(journal, created(3L * SEGMENT_RECORDS + 1, DEPARTMENT, START));
+        journal.snapshot();
+
+        // The tail segment always stays; both full ones precede the oldest kept snapshot
+        assertEquals(List.of(segments.get(2)), segmentFiles());
+        assertEquals(2, snapshotNames().size());
+        assertEquals(List.of(3L * SEGMENT_RECORDS + 1), journal.history(3L * SEGMENT_RECORDS + 1).stream()
+                .map(entry -> entry.event().tokenId()).toList());
+    }
+
+    private TokenJournal open() throws IOException {
+        TokenRepository tokenRepository = InMemoryRepositories.stub(TokenRepository.class, Map.of(
+                "countByDepartmentAndStatusIn", args -> statusCounts(),
+                "findByStatusIn", args -> {
+                    rebuilds++;
+                    return table.values().stream()
+                            .filter(token -> token.getStatus() == Token.TokenStatus.WAITING
+                                    || token.getStatus() == Token.TokenStatus.IN_PROGRESS)
+                            .sorted(Comparator.comparing(Token::getId))
+                            .toList();
+                }));
+        TokenJournal journal = new TokenJournal(tokenRepository, true, directory.toString(), 1, 1, false);
+        journal.recover();
+        journals.add(journal);
+        return journal;
+    }
+
+    /**
+     * Commit the event to the table, then hand it to the journal as the listener would
+     */
+    private void append(TokenJournal journal, TokenEvent event) {
+        Token token = table.computeIfAbsent(event.tokenId(), id -> {
+            Token created = new Token();
+            created.setId(id);
+            created.setDepartmentId(event.departmentId());
+            created.setBookingTime(event.bookingTime());
+            return created;
+        });
+        token.setStatus(event.newStatus());
+        journal.onTokenEvent(event);
+    }
+
+    private List<TokenRepository.StatusCount> statusCounts() {
+        Map<Long, Map<Token.TokenStatus, Long>> counts = new TreeMap<>();
+        for (Token token : table.values()) {
+            if (token.getStatus() == Token.TokenStatus.WAITING || token.getStatus() == Token.TokenStatus.IN_PROGRESS) {
+                counts.computeIfAbsent(token.getDepartmentId(), id -> new EnumMap<>(Token.TokenStatus.class))
+                        .merge(token.getStatus(), 1L, Long::sum);
+            }
+        }
+        List<TokenRepository.StatusCount> rows = new ArrayList<>();
+        counts.forEach((departmentId, byStatus) -> byStatus.forEach((status, count) ->
+                rows.add(new StatusCount(departmentId, status, count))));
+        return rows;
+    }
+
+    private static TokenEvent created(long tokenId, long departmentId, long timestamp) {
+        return new TokenEvent(TokenEvent.Type.CREATED, tokenId, departmentId, null, 100 + tokenId, 0,
+                LocalDateTime.of(2026, 3, 1, 9, 0).plusSeconds(tokenId), null, Token.TokenStatus.WAITING,
+                null, null, null, timestamp);
+    }
+
+    private TokenEvent changed(long tokenId, Token.TokenStatus oldStatus, Token.TokenStatus newStatus, long timestamp) {
+        Token token = table.get(tokenId);
+        return new TokenEvent(TokenEvent.Type.STATUS_CHANGED, tokenId, token.getDepartmentId(), null, 100 + tokenId,
+                0, token.getBookingTime(), oldStatus, newStatus, null, null, null, timestamp);
+    }
+
+    private static List<Long> activeIds(TokenJournal journal, long departmentId) {
+        return journal.activeTokens(departmentId).orElseThrow().stream().map(ActiveToken::tokenId).sorted().toList();
+    }
+
+    private static List<Long> tokenIdsOf(TokenJournal journal) {
+        List<Long> tokenIds = new ArrayList<>();
+        journal.replay(1, entry -> tokenIds.add(entry.event().tokenId()));
+        return tokenIds;
+    }
+
+    private void close(TokenJournal journal) throws IOException {
+        journal.close();
+        journals.remove(journal);
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segmentFiles();
+        assertEquals(1, segments.size());
+        return segments.get(0);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("journal-")).sorted().toList();
+        }
+    }
+
+    private List<String> snapshotNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith("snapshot-")).sorted().toList();
+        }
+    }
+
+    private static String snapshotName(long sequence) {
+        return String.format("snapshot-%020d.bin", sequence);
+    }
+
+    private static void corrupt(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, position);
+            value.put(0, (byte) (value.get(0) ^ 0xFF)).rewind();
+            channel.write(value, position);
+        }
+    }
+
+    private record StatusCount(Long departmentId, Token.TokenStatus status, Long count)
+            implements TokenRepository.StatusCount {
+
+        @Override
+        public Long getDepartmentId() {
+            return departmentId;
+        }
+
+        @Override
+        public Token.TokenStatus getStatus() {
+            return status;
+        }
+
+        @Override
+        public Long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.hospital.queue.loadtest;
+
+import com.hospital.queue.benchmark.InMemoryRepositories;
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.Token;
+import com.hospital.queue.event.TokenEvent;
+import com.hospital.queue.journal.TokenJournal;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.repository.DoctorRepository;
+import com.hospital.queue.repository.TokenRepository;
+import com.hospital.queue.service.DoctorDispatcher;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Discrete-event simulation of a busy department day through DoctorDispatcher, in
+ * simulated time: a mix of priority classes arrives at close to full doctor capacity,
+ * over a number of independent days, and the same arrivals and service times are replayed
+ * once per aging setting (0 = strict priority). Reports the wait distribution per priority
+ * class, to show the tail wait of low-priority patients is bounded under aging.
+ * Run with: mvn -Ploadtest verify -Dloadtest.main=com.hospital.queue.loadtest.AgingSimulation
+ *   -Dloadtest.args="[days=30] [hours=10] [doctors=6] [utilization=0.98] [output dir]"
+ */
+public class AgingSimulation {
+
+    private static final long DEPARTMENT_ID = 1;
+    private static final double SERVICE_MINUTES = 12;
+    private static final int[] PRIORITIES = {0, 1, 2};
+    private static final double[] PRIORITY_SHARE = {0.6, 0.25, 0.15};
+    private static final long[] AGING_MINUTES = {0, 30, 10};
+    private static final LocalDateTime OPENING = LocalDateTime.of(2026, 1, 5, 8, 0);
+
+    private final List<List<Arrival>> days;
+    private final int doctors;
+
+    public AgingSimulation(List<List<Arrival>> days, int doctors) {
+        this.days = days;
+        this.doctors = doctors;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int dayCount = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        double hours = args.length > 1 ? Double.parseDouble(args[1]) : 10;
+        int doctors = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+        double utilization = args.length > 3 ? Double.parseDouble(args[3]) : 0.98;
+        Path outputDirectory = Path.of(args.length > 4 ? args[4] : "target/loadtest");
+
+        Random random = new Random(7);
+        List<List<Arrival>> days = new ArrayList<>();
+        for (int day = 0; day < dayCount; day++) {
+            days.add(arrivals(hours, doctors, utilization, random));
+        }
+        AgingSimulation simulation = new AgingSimulation(days, doctors);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("days", dayCount);
+        report.put("hours", hours);
+        report.put("doctors", doctors);
+        report.put("utilization", utilization);
+        report.put("patients", days.stream().mapToInt(List::size).sum());
+        StringBuilder table = new StringBuilder(String.format("%n%-14s %-9s %7s %9s %9s %9s %9s%n",
+                "aging min/lvl", "priority", "count", "p50 min", "p90 min", "p99 min", "max min"));
+        for (long aging : AGING_MINUTES) {
+            report.put("aging-" + aging, simulation.run(aging, table));
+        }
+
+        Files.createDirectories(outputDirectory);
+        Path file = outputDirectory.resolve("aging-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+        System.out.println(table);
+        System.out.println("Report written to " + file);
+    }
+
+    /**
+     * Poisson arrivals over the opening hours with exponential service times, at the
+     * given share of the doctors' capacity
+     */
+    static List<Arrival> arrivals(double hours, int doctors, double utilization, Random random) {
+        double perMinute = utilization * doctors / SERVICE_MINUTES;
+        List<Arrival> arrivals = new ArrayList<>();
+        double minute = 0;
+        while (true) {
+            minute += -Math.log(1 - random.nextDouble()) / perMinute;
+            if (minute >= hours * 60) {
+                return arrivals;
+            }
+            double pick = random.nextDouble();
+            int priority = PRIORITIES[PRIORITIES.length - 1];
+            for (int i = 0; i < PRIORITIES.length; i++) {
+                pick -= PRIORITY_SHARE[i];
+                if (pick < 0) {
+                    priority = PRIORITIES[i];
+                    break;
+                }
+            }
+            double serviceMinutes = -Math.log(1 - random.nextDouble()) * SERVICE_MINUTES;
+            arrivals.add(new Arrival(arrivals.size() + 1, priority, minute, serviceMinutes));
+        }
+    }
+
+    private Map<String, Object> run(long agingMinutesPerLevel, StringBuilder table) {
+        Map<Integer, LatencyRecorder> waits = new TreeMap<>();
+        for (List<Arrival> arrivals : days) {
+            runDay(arrivals, dispatcher(agingMinutesPerLevel), waits);
+        }
+
+        Map<String, Object> classes = new LinkedHashMap<>();
+        waits.forEach((priority, recorder) -> {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", recorder.getCount());
+            summary.put("p50Minutes", minutes(recorder.percentileMicros(50)));
+            summary.put("p90Minutes", minutes(recorder.percentileMicros(90)));
+            summary.put("p99Minutes", minutes(recorder.percentileMicros(99)));
+            summary.put("maxMinutes", minutes(recorder.getMaxMicros()));
+            classes.put("priority-" + priority, summary);
+            table.append(String.format("%-14s %-9d %7d %9.1f %9.1f %9.1f %9.1f%n",
+                    agingMinutesPerLevel == 0 ? "off" : agingMinutesPerLevel, priority, recorder.getCount(),
+                    minutes(recorder.percentileMicros(50)), minutes(recorder.percentileMicros(90)),
+                    minutes(recorder.percentileMicros(99)), minutes(recorder.getMaxMicros())));
+        });
+        return classes;
+    }
+
+    private void runDay(List<Arrival> arrivals, DoctorDispatcher dispatcher, Map<Integer, LatencyRecorder> waits) {
+        Map<Long, Arrival> byToken = new HashMap<>();
+
+        // Doctor free times; arrivals are consumed in order, interleaved with completions
+        PriorityQueue<Double> busyUntil = new PriorityQueue<>();
+        int idle = doctors;
+        int next = 0;
+        while (next < arrivals.size() || !busyUntil.isEmpty()) {
+            boolean arrivalFirst = next < arrivals.size()
+                    && (busyUntil.isEmpty() || arrivals.get(next).minute() <= busyUntil.peek());
+            double now;
+            if (arrivalFirst) {
+                Arrival arrival = arrivals.get(next++);
+                now = arrival.minute();
+                byToken.put(arrival.tokenId(), arrival);
+                dispatcher.onTokenEvent(event(arrival, null, Token.TokenStatus.WAITING, now));
+            } else {
+                now = busyUntil.poll();
+                idle++;
+            }
+
+            while (idle > 0) {
+                Long tokenId = dispatcher.claimNext(DEPARTMENT_ID, null);
+                if (tokenId == null) {
+                    break;
+                }
+                Arrival called = byToken.remove(tokenId);
+                dispatcher.onTokenEvent(event(called, Token.TokenStatus.WAITING, Token.TokenStatus.IN_PROGRESS, now));
+                waits.computeIfAbsent(called.priority(), p -> new LatencyRecorder())
+                        .recordNanos((long) ((now - called.minute()) * 60e9));
+                busyUntil.add(now + called.serviceMinutes());
+                idle--;
+            }
+        }
+    }
+
+    private static DoctorDispatcher dispatcher(long agingMinutesPerLevel) {
+        Department department = new Department();
+        department.setId(DEPARTMENT_ID);
+        department.setAverageServiceTime((int) SERVICE_MINUTES);
+        DoctorDispatcher dispatcher = new DoctorDispatcher(
+                InMemoryRepositories.stub(TokenRepository.class, Map.of(
+                        "findByDepartmentIdAndStatusInOrderByPriorityDescBookingTimeAsc", args -> List.of())),
+                InMemoryRepositories.stub(DoctorRepository.class, Map.of()),
+                InMemoryRepositories.stub(DepartmentRepository.class, Map.of(
+                        "findById", args -> Optional.of(department))),
+                new TokenJournal(null, false, "", 1, 1, false));
+        ReflectionTestUtils.setField(dispatcher, "agingMinutesPerLevel", agingMinutesPerLevel);
+        return dispatcher;
+    }
+
+    private static TokenEvent event(Arrival arrival, Token.TokenStatus oldStatus, Token.TokenStatus newStatus,
+                                    double now) {
+        return new TokenEvent(
+                oldStatus == null ? TokenEvent.Type.CREATED : TokenEvent.Type.STATUS_CHANGED,
+                arrival.tokenId(), DEPARTMENT_ID, null, arrival.tokenId(), arrival.priority(),
+                at(arrival.minute()), oldStatus, newStatus, null,
+                newStatus == Token.TokenStatus.IN_PROGRESS ? at(now) : null, null, 0);
+    }
+
+    private static LocalDateTime at(double minute) {
+        return OPENING.plusNanos((long) (minute * 60e9));
+    }
+
+    private static double minutes(long micros) {
+        return Math.round(micros / 6e6) / 10.0;
+    }
+
+    record Arrival(long tokenId, int priority, double minute, double serviceMinutes) {
+    }
+}
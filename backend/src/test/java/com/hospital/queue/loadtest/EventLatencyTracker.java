@@ -0,0 +1,53 @@
+package com.hospital.queue.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * End-to-end delivery latency: from the moment the client issued the REST request to
+ * the moment a probe subscriber received the matching STOMP event. Events can arrive
+ * before the REST response tells us which token they belong to, so receipts are
+ * parked until the send time for their key is known.
+ */
+public class EventLatencyTracker {
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Map<String, LatencyRecorder> recorders;
+
+    public EventLatencyTracker(Map<String, LatencyRecorder> recorders) {
+        this.recorders = recorders;
+    }
+
+    public void sent(String event, String key, long sentNanos) {
+        Pending entry = pending.computeIfAbsent(key, k -> new Pending());
+        synchronized (entry) {
+            entry.sentNanos = sentNanos;
+            for (long received : entry.early) {
+                recorder(event).recordNanos(received - sentNanos);
+            }
+            entry.early.clear();
+        }
+    }
+
+    public void received(String event, String key, long receivedNanos) {
+        Pending entry = pending.computeIfAbsent(key, k -> new Pending());
+        synchronized (entry) {
+            if (entry.sentNanos >= 0) {
+                recorder(event).recordNanos(receivedNanos - entry.sentNanos);
+            } else {
+                entry.early.add(receivedNanos);
+            }
+        }
+    }
+
+    private LatencyRecorder recorder(String event) {
+        return recorders.computeIfAbsent("event " + event, k -> new LatencyRecorder());
+    }
+
+    private static final class Pending {
+        private long sentNanos = -1;
+        private final List<Long> early = new ArrayList<>(2);
+    }
+}
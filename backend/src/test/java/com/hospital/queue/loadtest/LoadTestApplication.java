@@ -0,0 +1,105 @@
+package com.hospital.queue.loadtest;
+
+import com.hospital.queue.HospitalQueueApplication;
+import com.hospital.queue.entity.User;
+import com.hospital.queue.security.JwtTokenProvider;
+import com.hospital.queue.security.UserPrincipal;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Starts the full application on a random port and an H2 database in MySQL mode,
+ * in this JVM or as arguments for a child one, plus the seeding helpers the load
+ * tools share.
+ */
+final class LoadTestApplication {
+
+    private static final String H2_MODE = "MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=HOUR,DATE";
+
+    private LoadTestApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String jdbcUrl, String mlUrl, Map<String, String> overrides) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(HospitalQueueApplication.class)
+                .run(arguments(properties(jdbcUrl, mlUrl, overrides)));
+    }
+
+    static String inMemoryUrl(String database) {
+        return "jdbc:h2:mem:" + database + ";" + H2_MODE + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+    }
+
+    static String fileUrl(Path database) {
+        return "jdbc:h2:file:" + database.toAbsolutePath() + ";" + H2_MODE;
+    }
+
+    static Map<String, String> properties(String jdbcUrl, String mlUrl, Map<String, String> overrides) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.jpa.properties.hibernate.dialect", ""); // detected, instead of MySQLDialect
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("ml.service.url", mlUrl);
+        properties.put("journal.directory", Path.of(System.getProperty("java.io.tmpdir"),
+                "queue-journal-" + UUID.randomUUID()).toString());
+        properties.put("logging.level.root", "WARN");
+        // An empty queue answers call-next with an exception; keep its stack traces out of the report
+        properties.put("logging.level.org.apache.catalina.core.ContainerBase", "OFF");
+        properties.putAll(overrides);
+        return properties;
+    }
+
+    /**
+     * As command-line arguments, so they override application.yml
+     */
+    static String[] arguments(Map<String, String> properties) {
+        return properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+    }
+
+    static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    static User newUser(String username, String passwordHash, User.Role role, Long hospitalId) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@loadtest.local");
+        user.setPassword(passwordHash);
+        user.setFullName(username);
+        user.setRole(role);
+        user.setHospitalId(hospitalId);
+        return user;
+    }
+
+    static String jwt(JwtTokenProvider tokenProvider, User user) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        return tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    static InputStream open(String location) throws Exception {
+        if (location.startsWith("classpath:")) {
+            InputStream in = LoadTestApplication.class.getClassLoader()
+                    .getResourceAsStream(location.substring("classpath:".length()));
+            if (in == null) {
+                throw new IllegalArgumentException("Not found: " + location);
+            }
+            return in;
+        }
+        return Files.newInputStream(Path.of(location));
+    }
+}
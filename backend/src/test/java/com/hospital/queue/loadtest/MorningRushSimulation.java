@@ -0,0 +1,443 @@
+package com.hospital.queue.loadtest;
+
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.Doctor;
+import com.hospital.queue.entity.Hospital;
+import com.hospital.queue.entity.User;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.repository.DoctorRepository;
+import com.hospital.queue.repository.HospitalRepository;
+import com.hospital.queue.repository.UserRepository;
+import com.hospital.queue.security.JwtTokenProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.SimpleMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays a morning rush against the full application: booking arrivals that follow
+ * the scenario's curve, doctors calling and completing patients, cancellations, and
+ * thousands of STOMP subscribers on the department topics. The app runs on an
+ * in-memory H2 database in MySQL mode with a stub ML service, in this JVM.
+ * Reports throughput and p50/p95/p99 per endpoint and for end-to-end event delivery.
+ * Run with: mvn -Ploadtest verify [-Dloadtest.scenario=path/to/scenario.json]
+ */
+@Slf4j
+public class MorningRushSimulation {
+
+    private static final String CALL_NEXT = "POST /api/tokens/department/{id}/call-next";
+    private static final String BOOK = "POST /api/tokens";
+    private static final String COMPLETE = "PUT /api/tokens/{id}/status COMPLETED";
+    private static final String CANCEL = "PUT /api/tokens/{id}/status CANCELLED";
+
+    private final Scenario scenario;
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final Map<String, LatencyRecorder> requestLatencies = new ConcurrentSkipListMap<>();
+    private final Map<String, LatencyRecorder> eventLatencies = new ConcurrentSkipListMap<>();
+    private final Map<String, Map<String, LongAdder>> outcomes = new ConcurrentSkipListMap<>();
+    private final EventLatencyTracker eventTracker = new EventLatencyTracker(eventLatencies);
+    private final Set<Long> calledTokens = ConcurrentHashMap.newKeySet();
+    private final LongAdder deliveries = new LongAdder();
+    private final Random random = new Random(42);
+
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(workers)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private String baseUrl;
+    private List<Long> departmentIds;
+    private Map<Long, List<Seeded>> doctorsByDepartment;
+    private List<Seeded> patients;
+
+    public MorningRushSimulation(Scenario scenario) {
+        this.scenario = scenario;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String scenarioLocation = args.length > 0 ? args[0] : "classpath:loadtest/morning-rush.json";
+        Path outputDirectory = Path.of(args.length > 1 ? args[1] : "target/loadtest");
+
+        Scenario scenario;
+        try (InputStream in = LoadTestApplication.open(scenarioLocation)) {
+            scenario = JsonMapper.builder().build().readValue(in, Scenario.class);
+        }
+        new MorningRushSimulation(scenario).run(outputDirectory);
+        System.exit(0);
+    }
+
+    public void run(Path outputDirectory) throws Exception {
+        try (StubPredictionServer mlServer = new StubPredictionServer(
+                scenario.getMlLatencyMillis(), scenario.getMlEstimatedWaitMinutes())) {
+            ConfigurableApplicationContext context = LoadTestApplication.start(
+                    LoadTestApplication.inMemoryUrl("morning-rush"), mlServer.getUrl(), scenario.getAppProperties());
+            WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+            stompClient.setMessageConverter(new SimpleMessageConverter()); // raw frame bytes
+            stompClient.setDefaultHeartbeat(new long[]{0, 0});
+            try {
+                baseUrl = LoadTestApplication.baseUrl(context);
+                seed(context);
+                List<StompSession> sessions = connectSubscribers(stompClient);
+
+                long started = System.nanoTime();
+                drive();
+                double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+                sessions.forEach(StompSession::disconnect);
+                writeReport(outputDirectory, elapsedSeconds, sessions.size(), mlServer.getRequestCount());
+            } finally {
+                stompClient.stop();
+                timers.shutdownNow();
+                workers.shutdownNow();
+                context.close();
+            }
+        }
+    }
+
+    private void seed(ConfigurableApplicationContext context) {
+        HospitalRepository hospitalRepository = context.getBean(HospitalRepository.class);
+        DepartmentRepository departmentRepository = context.getBean(DepartmentRepository.class);
+        DoctorRepository doctorRepository = context.getBean(DoctorRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        JwtTokenProvider tokenProvider = context.getBean(JwtTokenProvider.class);
+        String passwordHash = context.getBean(PasswordEncoder.class).encode("load-test");
+
+        Hospital hospital = new Hospital();
+        hospital.setName("Load Test General");
+        hospital = hospitalRepository.save(hospital);
+
+        departmentIds = new ArrayList<>();
+        doctorsByDepartment = new HashMap<>();
+        for (int d = 0; d < scenario.getDepartments(); d++) {
+            Department department = new Department();
+            department.setHospitalId(hospital.getId());
+            department.setName("Department " + (d + 1));
+            department.setAverageServiceTime((int) Math.ceil(scenario.getServiceMinutes()));
+            department = departmentRepository.save(department);
+            departmentIds.add(department.getId());
+
+            List<Seeded> doctors = new ArrayList<>();
+            for (int i = 0; i < scenario.getDoctorsPerDepartment(); i++) {
+                User user = userRepository.save(LoadTestApplication.newUser(
+                        "doctor-" + d + "-" + i, passwordHash, User.Role.HOSPITAL_ADMIN, hospital.getId()));
+                Doctor doctor = new Doctor();
+                doctor.setUserId(user.getId());
+                doctor.setDepartmentId(department.getId());
+                doctor = doctorRepository.save(doctor);
+                doctors.add(new Seeded(doctor.getId(), LoadTestApplication.jwt(tokenProvider, user)));
+            }
+            doctorsByDepartment.put(department.getId(), doctors);
+        }
+
+        List<User> patientUsers = new ArrayList<>();
+        for (int i = 0; i < scenario.getPatients(); i++) {
+            patientUsers.add(LoadTestApplication.newUser("patient-" + i, passwordHash, User.Role.USER, null));
+        }
+        patients = userRepository.saveAll(patientUsers).stream()
+                .map(user -> new Seeded(user.getId(), LoadTestApplication.jwt(tokenProvider, user)))
+                .toList();
+        log.warn("Seeded {} departments, {} doctors, {} patients", departmentIds.size(),
+                departmentIds.size() * scenario.getDoctorsPerDepartment(), patients.size());
+    }
+
+    private List<StompSession> connectSubscribers(WebSocketStompClient stompClient) throws InterruptedException {
+        String url = baseUrl.replace("http", "ws") + "/ws/websocket";
+        List<CompletableFuture<StompSession>> pending = new ArrayList<>();
+        List<StompSession> sessions = new ArrayList<>();
+        for (Long departmentId : departmentIds) {
+            int total = scenario.getSubscribersPerDepartment() + scenario.getProbeSubscribersPerDepartment();
+            for (int i = 0; i < total; i++) {
+                boolean probe = i < scenario.getProbeSubscribersPerDepartment();
+                pending.add(stompClient.connectAsync(url, new SubscriberHandler(departmentId, probe)));
+                if (pending.size() == 100) {
+                    sessions.addAll(await(pending));
+                    pending.clear();
+                }
+            }
+        }
+        sessions.addAll(await(pending));
+        log.warn("Connected {} STOMP subscribers", sessions.size());
+        return sessions;
+    }
+
+    private List<StompSession> await(List<CompletableFuture<StompSession>> futures) throws InterruptedException {
+        List<StompSession> sessions = new ArrayList<>();
+        for (CompletableFuture<StompSession> future : futures) {
+            try {
+                sessions.add(future.get(30, TimeUnit.SECONDS));
+            } catch (ExecutionException | TimeoutException e) {
+                outcome("STOMP CONNECT", "failed").increment();
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Arrivals, doctors and cancellations until the simulated rush is over
+     */
+    private void drive() throws InterruptedException {
+        long realDuration = scenario.realMillis(scenario.getDurationMinutes());
+        long start = System.currentTimeMillis();
+        long stopAt = start + realDuration;
+
+        doctorsByDepartment.forEach((departmentId, doctors) -> doctors.forEach(doctor ->
+                workers.submit(() -> doctorLoop(departmentId, doctor, stopAt))));
+
+        AtomicInteger nextPatient = new AtomicInteger();
+        long tickMillis = 100;
+        double tickMinutes = tickMillis * scenario.getTimeScale() / 60_000;
+        while (System.currentTimeMillis() < stopAt) {
+            double minute = (System.currentTimeMillis() - start) * scenario.getTimeScale() / 60_000;
+            for (Long departmentId : departmentIds) {
+                int arrivals = poisson(scenario.arrivalRate(minute) * tickMinutes);
+                for (int i = 0; i < arrivals; i++) {
+                    Seeded patient = patients.get(nextPatient.getAndIncrement() % patients.size());
+                    workers.submit(() -> book(departmentId, patient));
+                }
+            }
+            Thread.sleep(tickMillis);
+        }
+        Thread.sleep(Math.min(5_000, scenario.realMillis(scenario.getServiceMinutes())));
+    }
+
+    private void book(Long departmentId, Seeded patient) {
+        String body = "{\"userId\":" + patient.id() + ",\"departmentId\":" + departmentId + ",\"priority\":0}";
+        Response response = call(BOOK, "POST", "/api/tokens", body, patient.jwt());
+        if (response.status() != 200) {
+            return;
+        }
+        long tokenId = jsonMapper.readTree(response.body()).path("id").asLong();
+        eventTracker.sent("token booked", "new:" + tokenId, response.sentNanos());
+
+        if (random.nextDouble() < scenario.getCancelRate()) {
+            long delay = scenario.realMillis(random.nextDouble() * scenario.getCancelWithinMinutes());
+            timers.schedule(() -> workers.submit(() -> cancel(tokenId, patient)), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void cancel(long tokenId, Seeded patient) {
+        if (calledTokens.contains(tokenId)) {
+            return;
+        }
+        eventTracker.sent("token cancelled", "status:" + tokenId + ":CANCELLED", System.nanoTime());
+        call(CANCEL, "PUT", "/api/tokens/" + tokenId + "/status", "{\"status\":\"CANCELLED\"}", patient.jwt());
+    }
+
+    private void doctorLoop(Long departmentId, Seeded doctor, long stopAt) {
+        try {
+            while (System.currentTimeMillis() < stopAt) {
+                Response called = call(CALL_NEXT, "POST",
+                        "/api/tokens/department/" + departmentId + "/call-next?doctorId=" + doctor.id(), null, doctor.jwt());
+                if (called.status() != 200) {
+                    Thread.sleep(scenario.realMillis(scenario.getIdlePollMinutes()));
+                    continue;
+                }
+                long tokenId = jsonMapper.readTree(called.body()).path("id").asLong();
+                calledTokens.add(tokenId);
+                eventTracker.sent("token called", "status:" + tokenId + ":IN_PROGRESS", called.sentNanos());
+
+                double serviceMinutes = -scenario.getServiceMinutes() * Math.log(1 - random.nextDouble());
+                Thread.sleep(scenario.realMillis(serviceMinutes));
+
+                eventTracker.sent("token completed", "status:" + tokenId + ":COMPLETED", System.nanoTime());
+                call(COMPLETE, "PUT", "/api/tokens/" + tokenId + "/status", "{\"status\":\"COMPLETED\"}", doctor.jwt());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Response call(String name, String method, String path, String body, String jwt) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + jwt)
+                .header("Content-Type", "application/json")
+                .method(method, body != null
+                        ? HttpRequest.BodyPublishers.ofString(body)
+                        : HttpRequest.BodyPublishers.noBody());
+
+        long sent = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            requestLatencies.computeIfAbsent(name, k -> new LatencyRecorder()).recordNanos(System.nanoTime() - sent);
+            outcome(name, classify(response.statusCode())).increment();
+            return new Response(response.statusCode(), response.body(), sent);
+        } catch (Exception e) {
+            outcome(name, "failed").increment();
+            return new Response(-1, null, sent);
+        }
+    }
+
+    /**
+     * Failures are reported by status code; an empty queue on call-next shows up as an error status too
+     */
+    private static String classify(int status) {
+        if (status == 200) {
+            return "ok";
+        }
+        if (status == 429) {
+            return "rate-limited";
+        }
+        return "http-" + status;
+    }
+
+    private LongAdder outcome(String name, String outcome) {
+        return outcomes.computeIfAbsent(name, k -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(outcome, k -> new LongAdder());
+    }
+
+    private int poisson(double mean) {
+        double limit = Math.exp(-mean);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > limit) {
+            count++;
+            product *= random.nextDouble();
+        }
+        return count;
+    }
+
+    private void writeReport(Path outputDirectory, double elapsedSeconds, int subscribers, long mlRequests)
+            throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("scenario", scenario.getName());
+        report.put("elapsedSeconds", elapsedSeconds);
+        report.put("subscribers", subscribers);
+        report.put("deliveries", deliveries.sum());
+        report.put("deliveriesPerSecond", deliveries.sum() / elapsedSeconds);
+        report.put("mlRequests", mlRequests);
+
+        StringBuilder table = new StringBuilder(String.format("%n%-48s %8s %9s %9s %9s %9s %9s  %s%n",
+                "name", "count", "per sec", "p50 ms", "p95 ms", "p99 ms", "max ms", "outcomes"));
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        requestLatencies.forEach((name, recorder) -> {
+            Map<String, Long> counts = new TreeMap<>();
+            outcomes.getOrDefault(name, Map.of()).forEach((outcome, adder) -> counts.put(outcome, adder.sum()));
+            endpoints.put(name, summary(recorder, elapsedSeconds, counts));
+            table.append(row(name, recorder, elapsedSeconds, counts.toString()));
+        });
+        Map<String, Object> events = new LinkedHashMap<>();
+        eventLatencies.forEach((name, recorder) -> {
+            events.put(name, summary(recorder, elapsedSeconds, Map.of()));
+            table.append(row(name, recorder, elapsedSeconds, ""));
+        });
+        report.put("endpoints", endpoints);
+        report.put("events", events);
+
+        Files.createDirectories(outputDirectory);
+        Path file = outputDirectory.resolve(scenario.getName() + "-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        jsonMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+
+        System.out.println(table);
+        System.out.printf("%d subscribers received %d events (%.0f/s); report written to %s%n",
+                subscribers, deliveries.sum(), deliveries.sum() / elapsedSeconds, file);
+    }
+
+    private static Map<String, Object> summary(LatencyRecorder recorder, double elapsedSeconds, Map<String, Long> outcomes) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", recorder.getCount());
+        summary.put("throughputPerSecond", recorder.getCount() / elapsedSeconds);
+        summary.put("meanMillis", recorder.getMeanMicros() / 1000.0);
+        summary.put("p50Millis", recorder.percentileMicros(50) / 1000.0);
+        summary.put("p95Millis", recorder.percentileMicros(95) / 1000.0);
+        summary.put("p99Millis", recorder.percentileMicros(99) / 1000.0);
+        summary.put("maxMillis", recorder.getMaxMicros() / 1000.0);
+        if (!outcomes.isEmpty()) {
+            summary.put("outcomes", outcomes);
+        }
+        return summary;
+    }
+
+    private static String row(String name, LatencyRecorder recorder, double elapsedSeconds, String outcomes) {
+        return String.format("%-48s %8d %9.1f %9.2f %9.2f %9.2f %9.2f  %s%n", name, recorder.getCount(),
+                recorder.getCount() / elapsedSeconds,
+                recorder.percentileMicros(50) / 1000.0, recorder.percentileMicros(95) / 1000.0,
+                recorder.percentileMicros(99) / 1000.0, recorder.getMaxMicros() / 1000.0, outcomes);
+    }
+
+    private record Seeded(Long id, String jwt) {
+    }
+
+    private record Response(int status, String body, long sentNanos) {
+    }
+
+    /**
+     * Subscribes a session to the department's new-token and status topics. Probe
+     * sessions also parse each event to measure end-to-end delivery latency.
+     */
+    private final class SubscriberHandler extends StompSessionHandlerAdapter {
+
+        private final Long departmentId;
+        private final boolean probe;
+
+        private SubscriberHandler(Long departmentId, boolean probe) {
+            this.departmentId = departmentId;
+            this.probe = probe;
+        }
+
+        @Override
+        public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+            StompFrameHandler handler = new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return byte[].class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    deliveries.increment();
+                    if (probe) {
+                        onProbeEvent(headers.getDestination(), (byte[]) payload);
+                    }
+                }
+            };
+            session.subscribe("/topic/queue/" + departmentId + "/new", handler);
+            session.subscribe("/topic/queue/" + departmentId + "/status", handler);
+        }
+
+        private void onProbeEvent(String destination, byte[] payload) {
+            long received = System.nanoTime();
+            JsonNode event = jsonMapper.readTree(payload);
+            if (destination != null && destination.endsWith("/new")) {
+                eventTracker.received("token booked", "new:" + event.path("id").asLong(), received);
+            } else {
+                String status = event.path("newStatus").asString();
+                String name = switch (status) {
+                    case "IN_PROGRESS" -> "token called";
+                    case "COMPLETED" -> "token completed";
+                    case "CANCELLED" -> "token cancelled";
+                    default -> "token " + status.toLowerCase();
+                };
+                eventTracker.received(name, "status:" + event.path("tokenId").asLong() + ":" + status, received);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.hospital.queue.loadtest;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load scenario read from a JSON file. Times are simulated minutes; timeScale
+ * compresses them (60 = one simulated minute per real second).
+ */
+@Data
+@NoArgsConstructor
+public class Scenario {
+
+    private String name = "morning-rush";
+    private int durationMinutes = 120;
+    private double timeScale = 60;
+
+    private int departments = 4;
+    private int doctorsPerDepartment = 3;
+    private int patients = 2000;
+
+    /**
+     * Bookings per minute for each department, linearly interpolated between points
+     */
+    private List<ArrivalPoint> arrivalCurve = new ArrayList<>();
+
+    private double serviceMinutes = 8;
+    private double cancelRate = 0.05;
+    private double cancelWithinMinutes = 30;
+    private double idlePollMinutes = 1;
+
+    private int subscribersPerDepartment = 250;
+    private int probeSubscribersPerDepartment = 2;
+
+    private long mlLatencyMillis = 20;
+    private int mlEstimatedWaitMinutes = 25;
+
+    /**
+     * Extra Spring properties for the application under test, e.g. rate limits
+     */
+    private Map<String, String> appProperties = new LinkedHashMap<>();
+
+    @Data
+    @NoArgsConstructor
+    public static class ArrivalPoint {
+        private double minute;
+        private double perMinute;
+    }
+
+    /**
+     * Arrival rate per department at the simulated minute
+     */
+    public double arrivalRate(double minute) {
+        if (arrivalCurve.isEmpty()) {
+            return 0;
+        }
+        ArrivalPoint previous = arrivalCurve.get(0);
+        if (minute <= previous.getMinute()) {
+            return previous.getPerMinute();
+        }
+        for (ArrivalPoint point : arrivalCurve) {
+            if (minute <= point.getMinute()) {
+                double span = point.getMinute() - previous.getMinute();
+                double fraction = span > 0 ? (minute - previous.getMinute()) / span : 1;
+                return previous.getPerMinute() + fraction * (point.getPerMinute() - previous.getPerMinute());
+            }
+            previous = point;
+        }
+        return previous.getPerMinute();
+    }
+
+    public long realMillis(double simulatedMinutes) {
+        return Math.round(simulatedMinutes * 60_000 / timeScale);
+    }
+}
@@ -0,0 +1,257 @@
+package com.hospital.queue.loadtest;
+
+import com.hospital.queue.HospitalQueueApplication;
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.Hospital;
+import com.hospital.queue.entity.User;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.repository.HospitalRepository;
+import com.hospital.queue.repository.UserRepository;
+import com.hospital.queue.security.JwtTokenProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures time-to-first-booking for each start-up mode: a fresh JVM is launched per
+ * run, and the clock runs from process start until the health endpoint answers and
+ * until the first POST /api/tokens succeeds. Every mode runs against the same H2 file
+ * database, prepared once with the schema and a patient. The AOT + CDS mode needs the
+ * jar and archive built by the startup profile.
+ * Run with: mvn -Pstartup verify [-Dstartup.runs=5]
+ */
+@Slf4j
+public class StartupBenchmark {
+
+    private static final long TIMEOUT_MILLIS = 120_000;
+
+    private final int runs;
+    private final Path cdsDirectory;
+    private final Path outputDirectory;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    private String jdbcUrl;
+    private String bookingBody;
+    private String jwt;
+
+    public StartupBenchmark(int runs, Path cdsDirectory, Path outputDirectory) {
+        this.runs = runs;
+        this.cdsDirectory = cdsDirectory.toAbsolutePath();
+        this.outputDirectory = outputDirectory.toAbsolutePath();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        Path cdsDirectory = Path.of(args.length > 1 ? args[1] : "target/cds");
+        Path outputDirectory = Path.of(args.length > 2 ? args[2] : "target/startup");
+        new StartupBenchmark(runs, cdsDirectory, outputDirectory).run();
+        System.exit(0);
+    }
+
+    public void run() throws Exception {
+        try (StubPredictionServer mlServer = new StubPredictionServer(0, 25)) {
+            prepareDatabase(mlServer.getUrl());
+
+            String classpath = System.getProperty("java.class.path");
+            List<Mode> modes = new ArrayList<>();
+            modes.add(new Mode("classpath, ddl update", List.of(), classpath, null, false));
+            modes.add(new Mode("classpath, production profile", List.of(), classpath, null, true));
+            Optional<Path> jar = applicationJar();
+            Path archive = cdsDirectory.resolve("application.jsa");
+            if (jar.isPresent() && Files.exists(archive)) {
+                // Launched from the archive's directory, as the training run recorded a relative
+                // class path; H2 is test-scoped, so it is appended after it
+                String jarClasspath = jar.get().getFileName() + File.pathSeparator + h2Jar(classpath);
+                modes.add(new Mode("aot, production profile", List.of("-Dspring.aot.enabled=true"),
+                        jarClasspath, cdsDirectory, true));
+                modes.add(new Mode("aot + cds, production profile",
+                        List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=application.jsa"),
+                        jarClasspath, cdsDirectory, true));
+            } else {
+                log.warn("No AOT jar and CDS archive in {}; build them with mvn -Pstartup package", cdsDirectory);
+            }
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("runs", runs);
+            StringBuilder table = new StringBuilder(String.format("%n%-32s %14s %14s %18s %18s%n",
+                    "mode", "ready p50 ms", "ready min ms", "1st booking p50 ms", "1st booking min ms"));
+            for (Mode mode : modes) {
+                List<Long> ready = new ArrayList<>();
+                List<Long> firstBooking = new ArrayList<>();
+                for (int run = 1; run <= runs; run++) {
+                    long[] timings = launch(mode, run, mlServer.getUrl());
+                    ready.add(timings[0]);
+                    firstBooking.add(timings[1]);
+                    log.warn("{} run {}: ready {} ms, first booking {} ms", mode.name(), run, timings[0], timings[1]);
+                }
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("readyMillis", ready);
+                summary.put("firstBookingMillis", firstBooking);
+                summary.put("readyMedianMillis", median(ready));
+                summary.put("firstBookingMedianMillis", median(firstBooking));
+                report.put(mode.name(), summary);
+                table.append(String.format("%-32s %14d %14d %18d %18d%n", mode.name(),
+                        median(ready), Collections.min(ready), median(firstBooking), Collections.min(firstBooking)));
+            }
+
+            Path file = outputDirectory.resolve("startup-"
+                    + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+            JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+            System.out.println(table);
+            System.out.println("Report written to " + file);
+        }
+    }
+
+    /**
+     * Creates the schema with ddl update and seeds one department and patient, so the
+     * measured modes can validate the schema instead of creating it
+     */
+    private void prepareDatabase(String mlUrl) throws IOException {
+        Path database = outputDirectory.resolve("db");
+        if (Files.exists(database)) {
+            try (Stream<Path> files = Files.walk(database)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+        Files.createDirectories(database);
+        jdbcUrl = LoadTestApplication.fileUrl(database.resolve("queue"));
+
+        try (ConfigurableApplicationContext context = LoadTestApplication.start(jdbcUrl, mlUrl,
+                Map.of("spring.jpa.hibernate.ddl-auto", "update"))) {
+            Hospital hospital = new Hospital();
+            hospital.setName("Startup General");
+            hospital = context.getBean(HospitalRepository.class).save(hospital);
+
+            Department department = new Department();
+            department.setHospitalId(hospital.getId());
+            department.setName("Outpatients");
+            department.setAverageServiceTime(10);
+            department = context.getBean(DepartmentRepository.class).save(department);
+
+            User patient = context.getBean(UserRepository.class).save(
+                    LoadTestApplication.newUser("startup-patient", "unused", User.Role.USER, null));
+            jwt = LoadTestApplication.jwt(context.getBean(JwtTokenProvider.class), patient);
+            bookingBody = "{\"userId\":" + patient.getId() + ",\"departmentId\":" + department.getId()
+                    + ",\"priority\":0}";
+        }
+    }
+
+    /**
+     * Milliseconds from process start until healthy, and until the first booking succeeded
+     */
+    private long[] launch(Mode mode, int run, String mlUrl) throws Exception {
+        int port = freePort();
+        Map<String, String> overrides = new LinkedHashMap<>();
+        overrides.put("server.port", String.valueOf(port));
+        overrides.put("rate-limit.booking.user.burst", "1000");
+        if (mode.production()) {
+            overrides.put("spring.profiles.active", "production");
+        } else {
+            overrides.put("spring.jpa.hibernate.ddl-auto", "update");
+        }
+        Map<String, String> properties = LoadTestApplication.properties(jdbcUrl, mlUrl, overrides);
+        if (mode.production()) {
+            properties.remove("spring.jpa.hibernate.ddl-auto"); // the profile's validate applies
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(mode.jvmArguments());
+        command.add("-Dspring.devtools.restart.enabled=false");
+        command.add("-cp");
+        command.add(mode.classpath());
+        command.add(HospitalQueueApplication.class.getName());
+        command.addAll(List.of(LoadTestApplication.arguments(properties)));
+
+        Path log = outputDirectory.resolve(mode.name().replaceAll("[^a-z]+", "-") + "-" + run + ".log");
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(mode.workingDirectory() != null ? mode.workingDirectory().toFile() : null)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            String baseUrl = "http://127.0.0.1:" + port;
+            HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health")).build();
+            HttpRequest booking = HttpRequest.newBuilder(URI.create(baseUrl + "/api/tokens"))
+                    .header("Authorization", "Bearer " + jwt)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(bookingBody))
+                    .build();
+            long ready = awaitOk(health, process, started, log);
+            long firstBooking = awaitOk(booking, process, started, log);
+            return new long[]{ready, firstBooking};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private long awaitOk(HttpRequest request, Process process, long started, Path log) throws Exception {
+        while (true) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            if (!process.isAlive() || elapsed > TIMEOUT_MILLIS) {
+                throw new IllegalStateException("Application did not answer " + request.uri() + "; see " + log);
+            }
+            try {
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private Optional<Path> applicationJar() throws IOException {
+        if (!Files.isDirectory(cdsDirectory)) {
+            return Optional.empty();
+        }
+        try (Stream<Path> files = Files.list(cdsDirectory)) {
+            return files.filter(path -> path.toString().endsWith(".jar")).findFirst();
+        }
+    }
+
+    private static String h2Jar(String classpath) {
+        return Arrays.stream(classpath.split(File.pathSeparator))
+                .filter(entry -> Path.of(entry).getFileName().toString().startsWith("h2-"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("H2 is not on the test class path"));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = values.stream().sorted().toList();
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private record Mode(String name, List<String> jvmArguments, String classpath, Path workingDirectory,
+                        boolean production) {
+    }
+}
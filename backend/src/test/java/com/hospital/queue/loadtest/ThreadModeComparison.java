@@ -0,0 +1,236 @@
+package com.hospital.queue.loadtest;
+
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.Hospital;
+import com.hospital.queue.entity.User;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.repository.HospitalRepository;
+import com.hospital.queue.repository.UserRepository;
+import com.hospital.queue.security.JwtTokenProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the same closed-loop workload against the application twice, once on Tomcat's
+ * platform worker pool and once with spring.threads.virtual.enabled, and compares
+ * throughput and latency. Every client books a token (which blocks on the stub ML
+ * service) and then polls its department queue with think time, so the server holds
+ * thousands of concurrent requests that mostly wait on I/O. Booking rate limits are
+ * raised so they do not hide the thread model.
+ * Run with: mvn -Ploadtest verify -Dloadtest.main=com.hospital.queue.loadtest.ThreadModeComparison
+ *   -Dloadtest.args="[clients=5000] [seconds=60] [ml latency ms=50] [think ms=500] [output dir]"
+ */
+@Slf4j
+public class ThreadModeComparison {
+
+    private static final String BOOK = "POST /api/tokens";
+    private static final String QUEUE = "GET /api/tokens/department/{id}";
+    private static final int DEPARTMENTS = 20;
+
+    private final int clients;
+    private final long durationMillis;
+    private final long mlLatencyMillis;
+    private final long thinkMillis;
+
+    public ThreadModeComparison(int clients, long durationMillis, long mlLatencyMillis, long thinkMillis) {
+        this.clients = clients;
+        this.durationMillis = durationMillis;
+        this.mlLatencyMillis = mlLatencyMillis;
+        this.thinkMillis = thinkMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 60;
+        long mlLatency = args.length > 2 ? Long.parseLong(args[2]) : 50;
+        long think = args.length > 3 ? Long.parseLong(args[3]) : 500;
+        Path outputDirectory = Path.of(args.length > 4 ? args[4] : "target/loadtest");
+
+        ThreadModeComparison comparison = new ThreadModeComparison(clients, seconds * 1000, mlLatency, think);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("clients", clients);
+        report.put("durationSeconds", seconds);
+        report.put("mlLatencyMillis", mlLatency);
+        report.put("thinkMillis", think);
+        StringBuilder table = new StringBuilder(String.format("%n%-9s %-32s %8s %9s %9s %9s %9s %9s  %s%n",
+                "mode", "name", "count", "per sec", "p50 ms", "p95 ms", "p99 ms", "max ms", "outcomes"));
+        for (String mode : List.of("platform", "virtual")) {
+            report.put(mode, comparison.run(mode, table));
+        }
+
+        Files.createDirectories(outputDirectory);
+        Path file = outputDirectory.resolve("thread-modes-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+        System.out.println(table);
+        System.out.println("Report written to " + file);
+        System.exit(0);
+    }
+
+    private Map<String, Object> run(String mode, StringBuilder table) throws Exception {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.threads.virtual.enabled", String.valueOf(mode.equals("virtual")));
+        properties.put("rate-limit.booking.user.permits-per-minute", "600");
+        properties.put("rate-limit.booking.user.burst", "100");
+        properties.put("rate-limit.booking.department.permits-per-second", "100000");
+        properties.put("rate-limit.booking.department.burst", "100000");
+
+        Map<String, LatencyRecorder> latencies = new ConcurrentSkipListMap<>();
+        Map<String, Map<String, LongAdder>> outcomes = new ConcurrentSkipListMap<>();
+        try (StubPredictionServer mlServer = new StubPredictionServer(mlLatencyMillis, 25);
+             ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            ConfigurableApplicationContext context = LoadTestApplication.start(
+                    LoadTestApplication.inMemoryUrl("thread-mode-" + mode), mlServer.getUrl(), properties);
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(workers)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+            try {
+                String baseUrl = LoadTestApplication.baseUrl(context);
+                List<Client> seeded = seed(context);
+                log.warn("{} mode: {} clients for {} s", mode, seeded.size(), durationMillis / 1000);
+
+                long started = System.nanoTime();
+                long stopAt = System.currentTimeMillis() + durationMillis;
+                CountDownLatch done = new CountDownLatch(seeded.size());
+                for (Client client : seeded) {
+                    workers.submit(() -> {
+                        try {
+                            clientLoop(client, stopAt, httpClient, baseUrl, latencies, outcomes);
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                }
+                done.await();
+                double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+                Map<String, Object> endpoints = new LinkedHashMap<>();
+                latencies.forEach((name, recorder) -> {
+                    Map<String, Long> counts = new TreeMap<>();
+                    outcomes.getOrDefault(name, Map.of()).forEach((outcome, adder) -> counts.put(outcome, adder.sum()));
+                    endpoints.put(name, summary(recorder, elapsedSeconds, counts));
+                    table.append(String.format("%-9s %-32s %8d %9.1f %9.2f %9.2f %9.2f %9.2f  %s%n", mode, name,
+                            recorder.getCount(), recorder.getCount() / elapsedSeconds,
+                            recorder.percentileMicros(50) / 1000.0, recorder.percentileMicros(95) / 1000.0,
+                            recorder.percentileMicros(99) / 1000.0, recorder.getMaxMicros() / 1000.0, counts));
+                });
+                return endpoints;
+            } finally {
+                httpClient.close();
+                context.close();
+            }
+        }
+    }
+
+    private List<Client> seed(ConfigurableApplicationContext context) {
+        HospitalRepository hospitalRepository = context.getBean(HospitalRepository.class);
+        DepartmentRepository departmentRepository = context.getBean(DepartmentRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        JwtTokenProvider tokenProvider = context.getBean(JwtTokenProvider.class);
+        String passwordHash = context.getBean(PasswordEncoder.class).encode("load-test");
+
+        Hospital hospital = new Hospital();
+        hospital.setName("Thread Mode General");
+        hospital = hospitalRepository.save(hospital);
+
+        List<Long> departmentIds = new ArrayList<>();
+        for (int d = 0; d < DEPARTMENTS; d++) {
+            Department department = new Department();
+            department.setHospitalId(hospital.getId());
+            department.setName("Department " + (d + 1));
+            department.setAverageServiceTime(10);
+            departmentIds.add(departmentRepository.save(department).getId());
+        }
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            users.add(LoadTestApplication.newUser("client-" + i, passwordHash, User.Role.USER, null));
+        }
+        List<User> saved = userRepository.saveAll(users);
+        List<Client> seeded = new ArrayList<>();
+        for (int i = 0; i < saved.size(); i++) {
+            User user = saved.get(i);
+            seeded.add(new Client(user.getId(), departmentIds.get(i % DEPARTMENTS),
+                    LoadTestApplication.jwt(tokenProvider, user)));
+        }
+        return seeded;
+    }
+
+    /**
+     * Book once, then poll the department queue until the run is over
+     */
+    private void clientLoop(Client client, long stopAt, HttpClient httpClient, String baseUrl,
+                            Map<String, LatencyRecorder> latencies, Map<String, Map<String, LongAdder>> outcomes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            Thread.sleep(random.nextLong(thinkMillis + 1)); // spread the first wave
+            String body = "{\"userId\":" + client.userId() + ",\"departmentId\":" + client.departmentId()
+                    + ",\"priority\":0}";
+            call(BOOK, "POST", "/api/tokens", body, client.jwt(), httpClient, baseUrl, latencies, outcomes);
+            while (System.currentTimeMillis() < stopAt) {
+                Thread.sleep(random.nextLong(2 * thinkMillis + 1));
+                call(QUEUE, "GET", "/api/tokens/department/" + client.departmentId(), null, client.jwt(),
+                        httpClient, baseUrl, latencies, outcomes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void call(String name, String method, String path, String body, String jwt,
+                             HttpClient httpClient, String baseUrl,
+                             Map<String, LatencyRecorder> latencies, Map<String, Map<String, LongAdder>> outcomes) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", "Bearer " + jwt)
+                .header("Content-Type", "application/json")
+                .method(method, body != null
+                        ? HttpRequest.BodyPublishers.ofString(body)
+                        : HttpRequest.BodyPublishers.noBody());
+
+        long sent = System.nanoTime();
+        String outcome;
+        try {
+            HttpResponse<Void> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            latencies.computeIfAbsent(name, k -> new LatencyRecorder()).recordNanos(System.nanoTime() - sent);
+            outcome = response.statusCode() == 200 ? "ok" : "http-" + response.statusCode();
+        } catch (Exception e) {
+            outcome = "failed";
+        }
+        outcomes.computeIfAbsent(name, k -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(outcome, k -> new LongAdder())
+                .increment();
+    }
+
+    private static Map<String, Object> summary(LatencyRecorder recorder, double elapsedSeconds, Map<String, Long> outcomes) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", recorder.getCount());
+        summary.put("throughputPerSecond", recorder.getCount() / elapsedSeconds);
+        summary.put("p50Millis", recorder.percentileMicros(50) / 1000.0);
+        summary.put("p95Millis", recorder.percentileMicros(95) / 1000.0);
+        summary.put("p99Millis", recorder.percentileMicros(99) / 1000.0);
+        summary.put("maxMillis", recorder.getMaxMicros() / 1000.0);
+        summary.put("outcomes", outcomes);
+        return summary;
+    }
+
+    private record Client(Long userId, Long departmentId, String jwt) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.hospital.queue.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingRateLimiterTests {
+
+    private static final Long BUSY_DEPARTMENT = 1L;
+    private static final Long QUIET_DEPARTMENT = 2L;
+
+    // Three bookings per client, one per department, neither refilling during the test
+    private final BookingRateLimiter limiter = new BookingRateLimiter(0.001, 3, 0.0001, 1, 100);
+
+    @Test
+    void busyDepartmentDoesNotSpendTheClientsAllowance() {
+        String client = BookingRateLimiter.clientKey(10L, "10.0.0.1");
+        limiter.acquire(BookingRateLimiter.clientKey(11L, "10.0.0.2"), BUSY_DEPARTMENT);
+
+        for (int retry = 0; retry < 5; retry++) {
+            RateLimitExceededException busy = assertThrows(RateLimitExceededException.class,
+                    () -> limiter.acquire(client, BUSY_DEPARTMENT));
+            assertEquals("Department is busy, please retry", busy.getMessage());
+        }
+
+        assertDoesNotThrow(() -> limiter.acquire(client, QUIET_DEPARTMENT));
+        assertEquals(5, limiter.getDepartmentRejections());
+        assertEquals(0, limiter.getUserRejections());
+    }
+
+    @Test
+    void noisyClientIsTurnedAwayBeforeTheDepartment() {
+        String client = BookingRateLimiter.clientKey(null, "10.0.0.1");
+        for (long department = 1; department <= 3; department++) {
+            limiter.acquire(client, department);
+        }
+
+        RateLimitExceededException tooMany = assertThrows(RateLimitExceededException.class,
+                () -> limiter.acquire(client, 4L));
+        assertEquals("Too many bookings, please wait", tooMany.getMessage());
+        // Department 4 still has its permit for someone else
+        assertDoesNotThrow(() -> limiter.acquire(BookingRateLimiter.clientKey(12L, "10.0.0.3"), 4L));
+    }
+}
@@ -0,0 +1,106 @@
+package com.hospital.queue.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTests {
+
+    @Test
+    void grantsTheBurstThenAsksToWaitAboutOneInterval() {
+        TokenBucketRateLimiter<String> limiter = new TokenBucketRateLimiter<>(1.0, 3, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("user"));
+        }
+        long wait = limiter.tryAcquire("user");
+
+        assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(1), "wait " + wait);
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        TokenBucketRateLimiter<String> limiter = new TokenBucketRateLimiter<>(1.0, 1, 100);
+
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a") > 0);
+        assertEquals(0, limiter.tryAcquire("b"));
+        assertEquals(2, limiter.getTrackedKeys());
+    }
+
+    @Test
+    void refundedPermitCanBeTakenAgain() {
+        TokenBucketRateLimiter<String> limiter = new TokenBucketRateLimiter<>(0.001, 2, 100);
+
+        assertEquals(0, limiter.tryAcquire("user"));
+        assertEquals(0, limiter.tryAcquire("user"));
+        limiter.refund("user");
+
+        assertEquals(0, limiter.tryAcquire("user"));
+        assertTrue(limiter.tryAcquire("user") > 0);
+    }
+
+    @Test
+    void refundNeverRaisesTheBucketAboveTheBurst() {
+        TokenBucketRateLimiter<String> limiter = new TokenBucketRateLimiter<>(0.001, 2, 100);
+
+        limiter.refund("user");
+        assertEquals(0, limiter.tryAcquire("user"));
+        limiter.refund("user");
+        limiter.refund("user");
+
+        assertEquals(0, limiter.tryAcquire("user"));
+        assertEquals(0, limiter.tryAcquire("user"));
+        assertTrue(limiter.tryAcquire("user") > 0);
+    }
+
+    @Test
+    void refillsAtTheSustainedRate() throws InterruptedException {
+        // 50 ms interval: long enough that a pause between the first two calls cannot refill it
+        TokenBucketRateLimiter<String> limiter = new TokenBucketRateLimiter<>(20.0, 1, 100);
+
+        assertEquals(0, limiter.tryAcquire("user"));
+        long wait = limiter.tryAcquire("user");
+        assertTrue(wait > 0);
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(0, limiter.tryAcquire("user"));
+    }
+
+    @Test
+    void concurrentCallersNeverGetMoreThanTheBurst() throws InterruptedException {
+        TokenBucketRateLimiter<String> limiter = new TokenBucketRateLimiter<>(0.001, 50, 100);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 100; i++) {
+                    if (limiter.tryAcquire("department") == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(50, granted.get());
+        assertEquals(750, limiter.getRejectedCount());
+    }
+}
@@ -0,0 +1,64 @@
+package com.hospital.queue.security;
+
+import com.hospital.queue.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTests {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicReference<Runnable> duringLoad = new AtomicReference<>(() -> { });
+    private final AtomicReference<User.Role> role = new AtomicReference<>(User.Role.HOSPITAL_ADMIN);
+
+    private final PrincipalCache cache = new PrincipalCache(username -> {
+        loads.incrementAndGet();
+        UserPrincipal principal = new UserPrincipal(1L, username, null, role.get(), 1L, true);
+        duringLoad.getAndSet(() -> { }).run();
+        return principal;
+    }, Duration.ofMinutes(5), 100);
+
+    @Test
+    void loadsOnceThenServesFromCache() {
+        cache.get("admin");
+        cache.get("admin");
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void unknownUserIsNotCached() {
+        PrincipalCache empty = new PrincipalCache(username -> null, Duration.ofMinutes(5), 100);
+
+        assertNull(empty.get("nobody"));
+        assertEquals(0, empty.size());
+    }
+
+    @Test
+    void evictReloadsTheChangedRow() {
+        cache.get("admin");
+        role.set(User.Role.USER);
+        cache.evict("admin");
+
+        assertEquals(User.Role.USER, cache.get("admin").getRole());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadRacingAnEvictIsNotCached() {
+        // The row is read, then a role change commits and evicts before the load is cached
+        duringLoad.set(() -> {
+            role.set(User.Role.USER);
+            cache.evict("admin");
+        });
+
+        assertEquals(User.Role.HOSPITAL_ADMIN, cache.get("admin").getRole());
+        assertEquals(User.Role.USER, cache.get("admin").getRole());
+        assertEquals(2, loads.get());
+    }
+}
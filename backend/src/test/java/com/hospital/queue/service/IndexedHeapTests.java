@@ -0,0 +1,109 @@
+package com.hospital.queue.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedHeapTests {
+
+    @Test
+    void pollsInOrder() {
+        IndexedHeap<Integer> heap = new IndexedHeap<>(Comparator.naturalOrder());
+        int[] values = {5, 1, 4, 2, 3};
+        for (int i = 0; i < values.length; i++) {
+            heap.put(i, values[i]);
+        }
+
+        assertEquals(List.of(1, 2, 3, 4, 5), drain(heap));
+        assertTrue(heap.isEmpty());
+        assertNull(heap.poll());
+        assertNull(heap.peek());
+    }
+
+    @Test
+    void removesFromTheMiddle() {
+        IndexedHeap<Integer> heap = new IndexedHeap<>(Comparator.naturalOrder());
+        for (int i = 0; i < 10; i++) {
+            heap.put(i, i * 10);
+        }
+
+        assertEquals(40, heap.remove(4));
+        assertEquals(70, heap.remove(7));
+        assertNull(heap.remove(4));
+
+        assertFalse(heap.contains(4));
+        assertEquals(8, heap.size());
+        assertEquals(List.of(0, 10, 20, 30, 50, 60, 80, 90), drain(heap));
+    }
+
+    @Test
+    void putWithAnExistingIdReRanksTheElement() {
+        IndexedHeap<Integer> heap = new IndexedHeap<>(Comparator.naturalOrder());
+        for (int i = 0; i < 10; i++) {
+            heap.put(i, i * 10);
+        }
+
+        heap.put(9, -1); // to the front
+        heap.put(0, 55); // from the front to the middle
+
+        assertEquals(10, heap.size());
+        assertEquals(-1, heap.peek());
+        assertEquals(List.of(-1, 10, 20, 30, 40, 50, 55, 60, 70, 80), drain(heap));
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        IndexedHeap<Integer> heap = new IndexedHeap<>(Comparator.reverseOrder());
+        for (int i = 0; i < 1_000; i++) {
+            heap.put(i, i);
+        }
+
+        assertEquals(1_000, heap.size());
+        assertEquals(1_000, heap.elements().size());
+        assertEquals(999, heap.poll());
+        assertTrue(heap.contains(0));
+    }
+
+    @Test
+    void matchesAPriorityQueueUnderRandomOperations() {
+        SplittableRandom random = new SplittableRandom(42);
+        Comparator<long[]> order = Comparator.comparingLong((long[] e) -> e[1]).thenComparingLong(e -> e[0]);
+        IndexedHeap<long[]> heap = new IndexedHeap<>(order);
+        PriorityQueue<long[]> reference = new PriorityQueue<>(order);
+        List<long[]> live = new ArrayList<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            int operation = random.nextInt(4);
+            if (operation < 2 || live.isEmpty()) {
+                long[] element = {step, random.nextLong(1_000)};
+                heap.put(element[0], element);
+                reference.add(element);
+                live.add(element);
+            } else if (operation == 2) {
+                long[] element = live.remove(random.nextInt(live.size()));
+                assertSame(element, heap.remove(element[0]));
+                reference.remove(element);
+            } else {
+                long[] polled = heap.poll();
+                assertSame(reference.poll(), polled);
+                live.remove(polled);
+            }
+            assertEquals(reference.size(), heap.size());
+            assertSame(reference.peek(), heap.peek());
+        }
+    }
+
+    private static <T> List<T> drain(IndexedHeap<T> heap) {
+        List<T> drained = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            drained.add(heap.poll());
+        }
+        return drained;
+    }
+}
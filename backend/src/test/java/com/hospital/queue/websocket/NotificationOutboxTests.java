@@ -0,0 +1,87 @@
+package com.hospital.queue.websocket;
+
+import com.hospital.queue.benchmark.InMemoryRepositories;
+import com.hospital.queue.dto.NotificationReplayResponse;
+import com.hospital.queue.repository.UserNotificationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationOutboxTests {
+
+    private static final long PATIENT = 1;
+    private static final long OTHER_PATIENT = 2;
+
+    private final NotificationOutbox outbox = outbox();
+
+    @Test
+    void replayReturnsNotificationsAfterTheCursorOldestFirst() {
+        long first = append(PATIENT, "Booked");
+        append(PATIENT, "Your turn!");
+
+        NotificationReplayResponse response = outbox.replaySince(PATIENT, first);
+
+        assertEquals(List.of("Your turn!"), messages(response));
+        assertTrue(response.getComplete());
+    }
+
+    @Test
+    void cursorIsTheUsersOwnLatestSequence() {
+        long own = append(PATIENT, "Booked");
+        append(OTHER_PATIENT, "Booked");
+        append(OTHER_PATIENT, "Called");
+
+        NotificationReplayResponse response = outbox.replaySince(PATIENT, 0);
+
+        assertEquals(own, response.getLatestSequence());
+    }
+
+    @Test
+    void cursorNeverMovesBackOrPastUnseenNotifications() {
+        long booked = append(PATIENT, "Booked");
+        append(OTHER_PATIENT, "Booked");
+
+        NotificationReplayResponse caughtUp = outbox.replaySince(PATIENT, booked);
+        assertEquals(List.of(), messages(caughtUp));
+        assertEquals(booked, caughtUp.getLatestSequence());
+
+        append(PATIENT, "Your turn!");
+        assertEquals(List.of("Your turn!"), messages(outbox.replaySince(PATIENT, caughtUp.getLatestSequence())));
+    }
+
+    @Test
+    void unknownUserGetsACompleteCursorOnItsNextReplay() {
+        NotificationReplayResponse first = outbox.replaySince(PATIENT, 0);
+        assertEquals(List.of(), messages(first));
+        assertFalse(first.getComplete());
+
+        append(PATIENT, "Your turn!");
+        NotificationReplayResponse next = outbox.replaySince(PATIENT, first.getLatestSequence());
+        assertEquals(List.of("Your turn!"), messages(next));
+        assertTrue(next.getComplete());
+    }
+
+    private long append(long userId, String message) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("message", message);
+        return (Long) outbox.append(userId, "token", notification).get("sequence");
+    }
+
+    private static List<Object> messages(NotificationReplayResponse response) {
+        return response.getNotifications().stream().map(notification -> notification.get("message")).toList();
+    }
+
+    private static NotificationOutbox outbox() {
+        NotificationOutbox outbox = new NotificationOutbox(
+                InMemoryRepositories.stub(UserNotificationRepository.class, Map.of()), JsonMapper.builder().build());
+        ReflectionTestUtils.setField(outbox, "capacity", 32);
+        ReflectionTestUtils.setField(outbox, "retentionMinutes", 120L);
+        return outbox;
+    }
+}
@@ -0,0 +1,108 @@
+package com.hospital.queue.websocket;
+
+import com.hospital.queue.benchmark.InMemoryRepositories;
+import com.hospital.queue.entity.Department;
+import com.hospital.queue.entity.User;
+import com.hospital.queue.repository.DepartmentRepository;
+import com.hospital.queue.security.UserPrincipal;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubscriptionAuthorizerTests {
+
+    private static final long HOSPITAL_ID = 3;
+    private static final long DEPARTMENT_ID = 1;
+
+    private final SubscriptionAuthorizer authorizer = new SubscriptionAuthorizer(
+            InMemoryRepositories.stub(DepartmentRepository.class, Map.of("findById", args -> {
+                Department department = new Department();
+                department.setId((Long) args[0]);
+                department.setHospitalId(HOSPITAL_ID);
+                return Optional.of(department);
+            })));
+
+    private final UserPrincipal patient = principal(10, User.Role.USER, null);
+    private final UserPrincipal hospitalAdmin = principal(20, User.Role.HOSPITAL_ADMIN, HOSPITAL_ID);
+    private final UserPrincipal otherHospitalAdmin = principal(30, User.Role.HOSPITAL_ADMIN, HOSPITAL_ID + 1);
+    private final UserPrincipal systemAdmin = principal(40, User.Role.SYSTEM_ADMIN, null);
+
+    @Test
+    void publicQueueTopicsAreOpenToAnyone() {
+        for (String suffix : new String[]{"", "/status", "/new", "/cancelled", "/waittime"}) {
+            assertTrue(authorizer.canSubscribe(null, "/topic/queue/1" + suffix), suffix);
+        }
+        assertTrue(authorizer.canSubscribe(null, "/topic/display/1"));
+    }
+
+    @Test
+    void unknownQueueTopicsAreDenied() {
+        assertFalse(authorizer.canSubscribe(patient, "/topic/queue/1/other"));
+        assertFalse(authorizer.canSubscribe(patient, "/topic/queue/1/status/extra"));
+        assertFalse(authorizer.canSubscribe(patient, "/topic/queue/1//stats"));
+        assertFalse(authorizer.canSubscribe(patient, "/topic/queue/updates"));
+        assertFalse(authorizer.canSubscribe(patient, "/topic/display/1/stats"));
+    }
+
+    @Test
+    void statsAreLimitedToAdminsOfTheDepartmentsHospital() {
+        assertTrue(authorizer.canSubscribe(hospitalAdmin, "/topic/queue/1/stats"));
+        assertFalse(authorizer.canSubscribe(otherHospitalAdmin, "/topic/queue/1/stats"));
+        assertFalse(authorizer.canSubscribe(patient, "/topic/queue/1/stats"));
+        assertFalse(authorizer.canSubscribe(null, "/topic/queue/1/stats"));
+    }
+
+    @Test
+    void patternsCannotReachAdminTopics() {
+        for (String destination : new String[]{
+                "/topic/queue/1/**", "/topic/queue/1/*", "/topic/queue/1/stat?", "/topic/queue/1/{name}",
+                "/topic/queue/**", "/topic/**", "/topic/display/*", "/topic/admin/**", "/queue/user/10/**"}) {
+            assertFalse(authorizer.canSubscribe(patient, destination), destination);
+            assertFalse(authorizer.canSubscribe(hospitalAdmin, destination), destination);
+        }
+    }
+
+    @Test
+    void userQueuesAreLimitedToThatUser() {
+        assertTrue(authorizer.canSubscribe(patient, "/queue/user/10/notifications"));
+        assertFalse(authorizer.canSubscribe(patient, "/queue/user/11/notifications"));
+        assertFalse(authorizer.canSubscribe(null, "/queue/user/10/notifications"));
+    }
+
+    @Test
+    void hospitalOverviewIsLimitedToThatHospitalsAdmins() {
+        assertTrue(authorizer.canSubscribe(hospitalAdmin, "/topic/hospital/3/overview"));
+        assertFalse(authorizer.canSubscribe(otherHospitalAdmin, "/topic/hospital/3/overview"));
+        assertFalse(authorizer.canSubscribe(hospitalAdmin, "/topic/hospital/3/other"));
+    }
+
+    @Test
+    void alertsAreLimitedToThatHospitalsAdmins() {
+        assertTrue(authorizer.canSubscribe(hospitalAdmin, "/topic/admin/3/alerts"));
+        assertTrue(authorizer.canSubscribe(systemAdmin, "/topic/admin/3/alerts"));
+        assertFalse(authorizer.canSubscribe(otherHospitalAdmin, "/topic/admin/3/alerts"));
+        assertFalse(authorizer.canSubscribe(patient, "/topic/admin/3/alerts"));
+        assertFalse(authorizer.canSubscribe(hospitalAdmin, "/topic/admin/3/other"));
+    }
+
+    @Test
+    void allHospitalsAlertsAreLimitedToSystemAdmins() {
+        assertTrue(authorizer.canSubscribe(systemAdmin, "/topic/admin/alerts"));
+        assertFalse(authorizer.canSubscribe(hospitalAdmin, "/topic/admin/alerts"));
+        assertFalse(authorizer.canSubscribe(patient, "/topic/admin/alerts"));
+        assertFalse(authorizer.canSubscribe(null, "/topic/admin/alerts"));
+    }
+
+    private static UserPrincipal principal(long id, User.Role role, Long hospitalId) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setPassword("x");
+        user.setRole(role);
+        user.setHospitalId(hospitalId);
+        return UserPrincipal.create(user);
+    }
+}
@@ -0,0 +1,76 @@
+package com.hospital.queue.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubscriptionRegistryTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SubscriptionRegistry registry = new SubscriptionRegistry(
+            new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry)).getBeanProvider(MeterRegistry.class));
+
+    @Test
+    void countsSubscribersPerDestination() {
+        subscribe("s1", "/topic/queue/1/status");
+        subscribe("s2", "/topic/queue/1/status");
+
+        assertTrue(registry.hasSubscribers("/topic/queue/1/status"));
+        assertEquals(2, registry.getSubscriberCount("/topic/queue/1/status"));
+        assertFalse(registry.hasSubscribers("/topic/queue/2/status"));
+    }
+
+    @Test
+    void familiesHideIds() {
+        assertEquals("/topic/queue/{id}/status", SubscriptionRegistry.family("/topic/queue/42/status"));
+        assertEquals("/topic/queue/{id}", SubscriptionRegistry.family("/topic/queue/42"));
+        assertEquals("/topic/admin/alerts", SubscriptionRegistry.family("/topic/admin/alerts"));
+        assertEquals("/queue/user/{id}/**", SubscriptionRegistry.family("/queue/user/7/notifications"));
+    }
+
+    @Test
+    void userQueuesAreCountedAsOneFamily() {
+        subscribe("s1", "/queue/user/7/notifications");
+        subscribe("s2", "/queue/user/8/notifications");
+        subscribe("s2", "/topic/queue/1/status");
+
+        assertEquals(Map.of("/queue/user/{id}/**", 2, "/topic/queue/{id}/status", 1),
+                registry.getSubscriberCountsByFamily());
+        assertEquals(2, meterRegistry.get("queue.stomp.subscriptions")
+                .tag("destination", "/queue/user/{id}/**").gauge().value());
+    }
+
+    @Test
+    void disconnectReleasesFamilyCounts() {
+        subscribe("s1", "/queue/user/7/notifications");
+        subscribe("s1", "/topic/queue/1/status");
+        registry.onDisconnect(new SessionDisconnectEvent(registry,
+                MessageBuilder.createMessage(new byte[0], StompHeaderAccessor.create(StompCommand.DISCONNECT).getMessageHeaders()),
+                "s1", CloseStatus.NORMAL));
+
+        assertTrue(registry.getSubscriberCountsByFamily().isEmpty());
+        assertFalse(registry.hasSubscribers("/topic/queue/1/status"));
+        assertEquals(0, meterRegistry.get("queue.stomp.subscriptions")
+                .tag("destination", "/topic/queue/{id}/status").gauge().value());
+    }
+
+    private void subscribe(String sessionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-" + destination.hashCode());
+        accessor.setDestination(destination);
+        registry.onSubscribe(new SessionSubscribeEvent(registry,
+                MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders())));
+    }
+}
@@ -1,11 +1,11 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { motion, AnimatePresence } from 'framer-motion';
 import { 
   Ticket, Clock, Calendar, CheckCircle, XCircle, 
   PlayCircle, Loader, RefreshCw, AlertCircle, Users,
   MapPin, Phone
 } from 'lucide-react';
-import { tokenAPI } from '../../services/api';
+import { tokenAPI, notificationAPI } from '../../services/api';
 import { useAuth } from '../../context/AuthContext';
 import websocketService from '../../services/websocket';
 import LoadingSpinner from '../shared/LoadingSpinner';
@@ -16,15 +16,18 @@ const MyTokens = () => {
   const [loading, setLoading] = useState(true);
   const [filter, setFilter] = useState('all');
   const [selectedToken, setSelectedToken] = useState(null);
+  // Sequence of the last notification seen, to fetch what was missed while disconnected
+  const lastSequence = useRef(0);
 
   useEffect(() => {
     if (user) {
       fetchMyTokens();
       
-      // Setup WebSocket for notifications
+      // Setup WebSocket for notifications; runs again on every reconnect
       websocketService.connect(() => {
         websocketService.subscribe(`/queue/user/${user.id}/notifications`, handleNotification);
         websocketService.subscribe(`/queue/user/${user.id}/call`, handleTokenCall);
+        fetchMissedNotifications();
       });
 
       return () => {
@@ -46,8 +49,35 @@ const MyTokens = () => {
     }
   };
 
-  const handleNotification = (notification) => {
-    console.log('Notification:', notification);
+  const fetchMissedNotifications = async () => {
+    const firstConnect = lastSequence.current === 0;
+    try {
+      const response = await notificationAPI.getMissed(user.id, lastSequence.current);
+      const { notifications, latestSequence, complete } = response.data;
+      lastSequence.current = Math.max(lastSequence.current, latestSequence);
+      if (firstConnect) {
+        return; // fetchMyTokens already loaded the current state
+      }
+      if (complete) {
+        notifications.forEach((notification) =>
+          notification.channel === 'call' ? showTokenCall(notification) : showNotification(notification)
+        );
+      }
+      if (!complete || notifications.length > 0) {
+        fetchMyTokens();
+      }
+    } catch (error) {
+      console.error('Error fetching missed notifications:', error);
+    }
+  };
+
+  const trackSequence = (message) => {
+    if (message.sequence > lastSequence.current) {
+      lastSequence.current = message.sequence;
+    }
+  };
+
+  const showNotification = (notification) => {
     // Show browser notification
     if (Notification.permission === 'granted') {
       new Notification('Queue Update', {
@@ -55,13 +85,24 @@ const MyTokens = () => {
         icon: '/hospital-icon.png'
       });
     }
+  };
+
+  const showTokenCall = (data) => {
+    // Show alert when it's user's turn
+    alert(`Your turn! Token ${data.tokenNumber} - Please proceed to ${data.departmentName}`);
+  };
+
+  const handleNotification = (notification) => {
+    console.log('Notification:', notification);
+    trackSequence(notification);
+    showNotification(notification);
     fetchMyTokens();
   };
 
   const handleTokenCall = (data) => {
     console.log('Token called:', data);
-    // Show alert when it's user's turn
-    alert(`Your turn! Token ${data.tokenNumber} - Please proceed to ${data.departmentName}`);
+    trackSequence(data);
+    showTokenCall(data);
     fetchMyTokens();
   };
 
@@ -48,6 +48,12 @@ export const tokenAPI = {
   getUserTokens: (userId) => api.get(`/tokens/user/${userId}`),
   getDepartmentQueue: (deptId) => api.get(`/tokens/department/${deptId}`),
   updateStatus: (id, status) => api.put(`/tokens/${id}/status`, { status }),
+  callNext: (deptId, doctorId) => api.post(`/tokens/department/${deptId}/call-next`, null, { params: { doctorId } }),
+};
+
+// Notification API
+export const notificationAPI = {
+  getMissed: (userId, after) => api.get(`/notifications/user/${userId}`, { params: { after } }),
 };
 
 // Department API
@@ -17,6 +17,12 @@ class WebSocketService {
 
     this.client = new Client({
       webSocketFactory: () => new SockJS('http://localhost:8080/ws'),
+
+      // Authenticated once on CONNECT; omitted for public display boards
+      beforeConnect: () => {
+        const token = localStorage.getItem('token');
+        this.client.connectHeaders = token ? { Authorization: `Bearer ${token}` } : {};
+      },
       
       onConnect: () => {
         console.log('✅ WebSocket Connected');